@@ -0,0 +1,27 @@
+#!/usr/bin/env bash
+# Generates a synthetic corpus and runs the end-to-end scaling benchmark over it.
+# Usage: scripts/benchmark.sh [documents=10000] [folders=20] [maxThreads=cores] [corpusDir=target/corpus] [pagesPerDocument=1]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+DOCUMENTS=${1:-10000}
+FOLDERS=${2:-20}
+MAX_THREADS=${3:-$(getconf _NPROCESSORS_ONLN)}
+CORPUS_DIR=${4:-target/corpus}
+PAGES=${5:-1}
+JAVA_OPTS=${JAVA_OPTS:--Xmx4g}
+
+# The benchmark sources live outside the app module (src/benchmark/java) and are compiled here
+./mvnw -q -B compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+CLASSPATH="target/classes:$(cat target/classpath.txt)"
+rm -rf target/benchmark-classes
+javac -encoding UTF-8 -d target/benchmark-classes -cp "$CLASSPATH" \
+    $(find src/benchmark/java -name '*.java')
+CLASSPATH="target/benchmark-classes:$CLASSPATH"
+
+if [ ! -f "$CORPUS_DIR/expected.tsv" ]; then
+    java $JAVA_OPTS -cp "$CLASSPATH" com.lazydev.pdf_convert.benchmark.CorpusGenerator \
+        "$CORPUS_DIR" "$DOCUMENTS" "$FOLDERS" "$PAGES"
+fi
+
+java $JAVA_OPTS -cp "$CLASSPATH" com.lazydev.pdf_convert.benchmark.ScalingBenchmark "$CORPUS_DIR" "$MAX_THREADS"
@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Builds a trimmed runtime (jlink: JDK + JavaFX modules only) and an AppCDS archive trained on a
+# sample conversion, then writes target/fast-start/bin/pdf-convert that starts with both.
+# Usage: scripts/fast-start.sh [sampleFolder=pdfFileTest]
+# The training run uses the window when a display is available (wrap in xvfb-run on a headless
+# build machine to archive the JavaFX classes too), otherwise it converts headless.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+SAMPLE_DIR=${1:-pdfFileTest}
+# Absolute: the archive is only used when the module path matches the training run
+OUT="$(pwd)/target/fast-start"
+MAIN=com.lazydev.pdf_convert/com.lazydev.pdf_convert.AppLauncher
+MODULES=java.base,java.desktop,java.logging,java.management,java.naming,java.scripting,java.security.jgss,\
+java.sql,java.xml,java.xml.crypto,jdk.charsets,jdk.crypto.ec,jdk.httpserver,jdk.management,jdk.unsupported,\
+jdk.xml.dom,jdk.zipfs,javafx.controls,javafx.fxml
+
+./mvnw -q -B -Pfast-start package -DskipTests
+
+# pdfbox and commons-logging are automatic modules, which jlink cannot link: the application
+# jars stay on the module path and only the JDK and JavaFX go into the image
+rm -rf "$OUT/runtime"
+jlink --module-path "$OUT/javafx" --add-modules "$MODULES" \
+    --strip-debug --no-header-files --no-man-pages --compress=2 --output "$OUT/runtime"
+"$OUT/runtime/bin/java" -Xshare:dump > /dev/null
+
+rm -f "$OUT/app.jsa"
+"$OUT/runtime/bin/java" -XX:ArchiveClassesAtExit="$OUT/app.jsa" \
+    --module-path "$OUT/lib" -m "$MAIN" --train "$SAMPLE_DIR"
+
+mkdir -p "$OUT/bin"
+cat > "$OUT/bin/pdf-convert" <<'LAUNCHER'
+#!/usr/bin/env bash
+DIR="$(cd "$(dirname "$0")/.." && pwd)"
+exec "$DIR/runtime/bin/java" -XX:SharedArchiveFile="$DIR/app.jsa" -Xshare:auto \
+    --module-path "$DIR/lib" -m com.lazydev.pdf_convert/com.lazydev.pdf_convert.AppLauncher "$@"
+LAUNCHER
+chmod +x "$OUT/bin/pdf-convert"
+
+echo "Without archive:"
+"$OUT/runtime/bin/java" --module-path "$OUT/lib" -m "$MAIN" --train "$SAMPLE_DIR" | grep "Training run finished"
+echo "With archive:"
+"$OUT/bin/pdf-convert" --train "$SAMPLE_DIR" | grep "Training run finished"
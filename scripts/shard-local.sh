@@ -0,0 +1,27 @@
+#!/usr/bin/env bash
+# Runs a sharded batch on this host: starts several worker processes against the same folders,
+# waits for them and merges their outputs into the usual TXT and XLSX per folder.
+# Usage: scripts/shard-local.sh <workers> <threadsPerWorker> <folder>...
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+WORKERS=$1
+THREADS=$2
+shift 2
+JAVA_OPTS=${JAVA_OPTS:--Xmx1g}
+
+./mvnw -q -B compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+CLASSPATH="target/classes:$(cat target/classpath.txt)"
+MAIN=com.lazydev.pdf_convert.AppLauncher
+
+PIDS=()
+for i in $(seq 1 "$WORKERS"); do
+    java $JAVA_OPTS -Dpdfconvert.journal.file="target/shard-worker-$i-events.jsonl" -cp "$CLASSPATH" \
+        "$MAIN" --shard-worker "$(hostname)-$i" "$THREADS" "$@" &
+    PIDS+=($!)
+done
+for pid in "${PIDS[@]}"; do
+    wait "$pid"
+done
+
+java $JAVA_OPTS -cp "$CLASSPATH" "$MAIN" --shard-merge "$@"
@@ -0,0 +1,265 @@
+package com.lazydev.pdf_convert.benchmark;
+
+import com.lazydev.pdf_convert.model.PDFData;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * Generates synthetic merchant contract PDFs laid out like the bank forms in {@code pdfFileTest},
+ * with random business names, addresses, serials, MID/TID and V-TOP values, plus an
+ * {@code expected.tsv} holding the record {@code RegexExtractor} should produce for each file.
+ * <p>
+ * Usage: {@code CorpusGenerator <outputDir> <documents> [folders=10] [pagesPerDocument=1] [seed=42] [fontFile]}
+ * <p>
+ * The Vietnamese labels need a Unicode TrueType font; without {@code fontFile} a few common
+ * system locations are tried.
+ */
+public class CorpusGenerator {
+    public static final String EXPECTED_FILE = "expected.tsv";
+
+    private static final String[] FONT_CANDIDATES = {
+            "/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf",
+            "/usr/share/fonts/dejavu/DejaVuSans.ttf",
+            "/usr/share/fonts/truetype/DejaVuSans.ttf",
+            "C:\\Windows\\Fonts\\arial.ttf",
+            "/System/Library/Fonts/Supplemental/Arial.ttf",
+            "/Library/Fonts/Arial Unicode.ttf"
+    };
+
+    private static final String[] NAME_PREFIXES = {"HO KINH DOANH", "CONG TY TNHH", "CUA HANG", "DOANH NGHIEP TU NHAN", "SIEU THI"};
+    private static final String[] NAME_WORDS = {"GAS", "TIEN DUNG", "HOANG HA", "VIT", "MINH ANH", "PHUONG NAM", "BAO AN",
+            "THANH CONG", "AN KHANG", "DAI PHAT", "HUNG THINH", "NGOC LAN", "QUANG TRUNG", "SAO MAI", "DONG DUONG"};
+    private static final String[] GROUPS = {"EXPAY", "ALPHAPAY", "ZANGI", "CHOLON", "VTOP", "NCTHANH"};
+    private static final String[] STREETS = {"QUANG TRUNG", "LE THANH TON", "PHO DONG", "CACH MANG THANG 8", "NGUYEN TRAI",
+            "TRAN HUNG DAO", "HAI BA TRUNG", "LY TU TRONG", "DIEN BIEN PHU"};
+    private static final String[] DISTRICTS = {"Q.GO VAP", "Q1", "Q3", "Q.TAN BINH", "HUYEN HOAI DUC", "Q.DONG DA", "Q.CAU GIAY"};
+    private static final String[] CITIES = {"HCM", "TP HA NOI", "DA NANG", "CAN THO"};
+    private static final String[] DEVICES = {"A910 Wifi", "S90 RF", "A920 Pro", "V210", "D200 4G"};
+    private static final String[] NOTES = {"DOI MAY", "LAP MOI", "BO SUNG TID", "CHUYEN DIA DIEM"};
+
+    private static final float FONT_SIZE = 9f;
+    private static final float LEADING = 12f;
+    private static final float MARGIN = 40f;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: CorpusGenerator <outputDir> <documents> [folders=10] [pagesPerDocument=1] [seed=42] [fontFile]");
+            System.exit(1);
+        }
+        File outputDir = new File(args[0]);
+        int documents = Integer.parseInt(args[1]);
+        int folders = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int pages = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+        File fontFile = args.length > 5 ? new File(args[5]) : findFont();
+
+        long start = System.nanoTime();
+        new CorpusGenerator(fontFile).generate(outputDir, documents, folders, pages, seed);
+        System.out.printf("Generated %d documents in %d folders under %s in %.1f s%n",
+                documents, folders, outputDir.getAbsolutePath(), (System.nanoTime() - start) / 1e9);
+    }
+
+    private final File fontFile;
+
+    public CorpusGenerator(File fontFile) {
+        this.fontFile = fontFile;
+    }
+
+    public static File findFont() {
+        for (String candidate : FONT_CANDIDATES) {
+            File file = new File(candidate);
+            if (file.isFile()) {
+                return file;
+            }
+        }
+        throw new IllegalStateException("No Unicode TrueType font found; pass one as the last argument");
+    }
+
+    /**
+     * Writes {@code documents} PDFs spread round-robin over {@code folders} sub-folders, generating
+     * folders in parallel. Document {@code i} always gets the same content for a given seed.
+     */
+    public void generate(File outputDir, int documents, int folders, int pagesPerDocument, long seed)
+            throws IOException, InterruptedException {
+        if (!outputDir.exists() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create " + outputDir.getPath());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int folder = 0; folder < folders; folder++) {
+            int folderIndex = folder;
+            futures.add(executor.submit(() ->
+                    generateFolder(outputDir, folderIndex, folders, documents, pagesPerDocument, seed)));
+        }
+        executor.shutdown();
+
+        try (BufferedWriter expected = Files.newBufferedWriter(
+                new File(outputDir, EXPECTED_FILE).toPath(), StandardCharsets.UTF_8)) {
+            expected.write("folder\tfile\tgroupName\tbusinessName\taddress\tserialNumber\tposDevice\tnotes"
+                    + "\tmerchantId\tterminalId\tterminalId00\tterminalVtopId\tposVtop\n");
+            for (Future<List<String>> future : futures) {
+                for (String line : future.get()) {
+                    expected.write(line);
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Corpus generation failed", e.getCause());
+        }
+    }
+
+    private List<String> generateFolder(File outputDir, int folderIndex, int folders, int documents,
+                                        int pagesPerDocument, long seed) throws IOException {
+        String folderName = String.format("batch_%03d", folderIndex + 1);
+        File folder = new File(outputDir, folderName);
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Cannot create " + folder.getPath());
+        }
+
+        List<String> expectedLines = new ArrayList<>();
+        // TrueTypeFont is not thread-safe, so each folder task parses its own copy once
+        try (TrueTypeFont font = new TTFParser().parse(fontFile)) {
+            for (int i = folderIndex; i < documents; i += folders) {
+                Random random = new Random(seed * 1_000_003L + i);
+                PDFData data = randomData(random);
+                String fileName = String.format("%s(%d)%s.pdf", "01.01.2025", i + 1, data.getGroupName());
+                writeDocument(new File(folder, fileName), data, random, pagesPerDocument, font);
+                expectedLines.add(expectedLine(folderName, fileName, data));
+            }
+        }
+        return expectedLines;
+    }
+
+    private static PDFData randomData(Random random) {
+        PDFData data = new PDFData();
+        String group = pick(random, GROUPS);
+        String business = pick(random, NAME_PREFIXES) + " " + pick(random, NAME_WORDS) + " " + (random.nextInt(99) + 1);
+        data.setGroupName(group);
+        data.setBusinessName(business);
+        data.setAddress("SO " + (random.nextInt(899) + 1) + " " + pick(random, STREETS) + ", P." + (random.nextInt(20) + 1)
+                + ", " + pick(random, DISTRICTS) + ", " + pick(random, CITIES));
+        data.setSerialNumber("F" + digits(random, 10));
+        data.setPosDevice(pick(random, DEVICES));
+        data.setNotes(random.nextInt(4) == 0 ? pick(random, NOTES) : "null");
+        data.setMerchantId(digits(random, 11));
+
+        // About half the terminals use the "xx39" prefix that RegexExtractor maps to a TID 00
+        String tid = random.nextBoolean()
+                ? digits(random, 2) + "39" + digits(random, 4)
+                : digits(random, 8).replaceFirst("^(..)39", "$140");
+        data.setTerminalId(tid);
+        if (tid.substring(2, 4).equals("39")) {
+            data.setTerminalId00(tid.substring(0, 2) + "00" + tid.substring(4));
+        }
+        String vtop = digits(random, 8);
+        data.setTerminalVtopId(vtop);
+        data.setPosVtop("POS_" + vtop);
+        return data;
+    }
+
+    private static void writeDocument(File file, PDFData data, Random random, int pages, TrueTypeFont ttf)
+            throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDType0Font font = PDType0Font.load(document, ttf, true);
+
+            List<String> lines = new ArrayList<>();
+            lines.add("Tầng 8 – Văn phòng số L8-01-11+16, Tòa nhà VinCom Center,");
+            lines.add("72 Lê Thánh Tôn và 45A Lý Tự Trọng, P.Bến Nghé, Q1, TP.HCM");
+            lines.add("GIẤY ĐỀ NGHỊ");
+            lines.add("KIỂM TRA THÔNG TIN KHÁCH HÀNG ĐỀ NGHỊ HỢP TÁC THANH TOÁN THẺ");
+            lines.add("Tên pháp lý (Theo giấy phép kinh doanh): " + data.getBusinessName() + " - " + data.getGroupName());
+            lines.add("Tên tiếng Anh:");
+            lines.add("Tên kinh doanh (Trên hóa đơn thẻ): " + data.getBusinessName());
+            lines.add("Số đăng ký kinh doanh: " + digits(random, 2) + "M" + digits(random, 7));
+            lines.add("Địa chỉ: " + data.getAddress());
+            lines.add("Điện thoại: 09" + digits(random, 8));
+            lines.add("Địa chỉ lắp máy: " + data.getAddress());
+            lines.add("Số S/N của máy EDC: " + data.getSerialNumber().substring(1) + " Lắp đặt PIN PAD: Có Không");
+            lines.add("Loại máy: " + data.getPosDevice());
+            lines.add("Ghi chú: " + (data.getNotes().equals("null") ? "" : data.getNotes()));
+            lines.add("Ngày 01 tháng 01 năm 2025");
+            lines.add("Nhận xét: MCC: " + digits(random, 4));
+            lines.add("USD");
+            lines.add("MID");
+            lines.add("VND " + spaced(data.getMerchantId()));
+            lines.add("USD");
+            lines.add("TID");
+            lines.add("VND " + spaced(data.getTerminalId()));
+            lines.add("TID V-TOP " + spaced(data.getTerminalVtopId()));
+            lines.add("Ngày 01 tháng 01 năm 2025");
+            lines.add("Người Duyệt Cấp Có Thẩm Quyền");
+            writePage(document, font, lines);
+
+            for (int page = 1; page < pages; page++) {
+                List<String> filler = new ArrayList<>();
+                filler.add("PHỤ LỤC " + page);
+                for (int line = 0; line < 50; line++) {
+                    filler.add("Điều khoản " + page + "." + (line + 1) + ": Bên chấp nhận thẻ tuân thủ quy định của ngân hàng.");
+                }
+                writePage(document, font, filler);
+            }
+            document.save(file);
+        }
+    }
+
+    private static void writePage(PDDocument document, PDType0Font font, List<String> lines) throws IOException {
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            content.beginText();
+            content.setFont(font, FONT_SIZE);
+            content.setLeading(LEADING);
+            content.newLineAtOffset(MARGIN, PDRectangle.A4.getHeight() - MARGIN);
+            for (String line : lines) {
+                content.showText(line);
+                content.newLine();
+            }
+            content.endText();
+        }
+    }
+
+    private static String expectedLine(String folder, String fileName, PDFData data) {
+        return String.join("\t", folder, fileName, data.getGroupName(), data.getBusinessName(), data.getAddress(),
+                data.getSerialNumber(), data.getPosDevice(), data.getNotes(), data.getMerchantId(),
+                data.getTerminalId(), String.valueOf(data.getTerminalId00()), data.getTerminalVtopId(),
+                data.getPosVtop()) + "\n";
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String digits(Random random, int count) {
+        StringBuilder digits = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            digits.append((char) ('0' + random.nextInt(10)));
+        }
+        return digits.toString();
+    }
+
+    private static String spaced(String digits) {
+        StringBuilder spaced = new StringBuilder(digits.length() * 2);
+        for (int i = 0; i < digits.length(); i++) {
+            if (i > 0) {
+                spaced.append(' ');
+            }
+            spaced.append(digits.charAt(i));
+        }
+        return spaced.toString();
+    }
+}
@@ -0,0 +1,186 @@
+package com.lazydev.pdf_convert.benchmark;
+
+import com.lazydev.pdf_convert.model.DataEntry;
+import com.lazydev.pdf_convert.model.PDFData;
+import com.lazydev.pdf_convert.service.ExcelService;
+import com.lazydev.pdf_convert.service.PDFService;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs {@link PDFService} and {@link ExcelService} end to end over a corpus from
+ * {@link CorpusGenerator}, once per thread count, the same way the controller does: one task per
+ * folder, PDF to TXT then TXT to XLSX. Each run is checked against {@code expected.tsv}.
+ * <p>
+ * Usage: {@code ScalingBenchmark <corpusDir> [maxThreads=cores] [repeats=1]}
+ * <p>
+ * Thread counts run are 1, 2, 4, ... up to {@code maxThreads}. Reports files/s, peak heap
+ * (total used heap sampled every {@value #HEAP_SAMPLE_MILLIS} ms during the run; per-pool peaks
+ * are reached at different times and overstate it when summed) and scaling efficiency
+ * {@code T(1) / (n * T(n))}, to stdout and {@code benchmark-report.tsv}.
+ */
+public class ScalingBenchmark {
+    private static final String REPORT_FILE = "benchmark-report.tsv";
+    private static final long HEAP_SAMPLE_MILLIS = 10;
+
+    private record RunResult(int threads, int documents, double seconds, long peakHeapBytes,
+                             int verified, int mismatched, int missing) { }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: ScalingBenchmark <corpusDir> [maxThreads=cores] [repeats=1]");
+            System.exit(1);
+        }
+        File corpusDir = new File(args[0]);
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        File[] folders = Optional.ofNullable(corpusDir.listFiles(File::isDirectory)).orElse(new File[0]);
+        Arrays.sort(folders);
+        if (folders.length == 0) {
+            System.err.println("No folders in " + corpusDir.getAbsolutePath());
+            System.exit(1);
+        }
+        Map<String, PDFData> expected = readExpected(new File(corpusDir, CorpusGenerator.EXPECTED_FILE));
+
+        // Untimed pass so the 1-thread baseline is not charged for class loading and JIT warm-up
+        run(folders, maxThreads, expected);
+
+        List<RunResult> results = new ArrayList<>();
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            RunResult best = null;
+            for (int repeat = 0; repeat < repeats; repeat++) {
+                RunResult result = run(folders, threads, expected);
+                if (best == null || result.seconds() < best.seconds()) {
+                    best = result;
+                }
+            }
+            results.add(best);
+            printResult(best, results.get(0));
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+        writeReport(new File(corpusDir, REPORT_FILE), results);
+
+        boolean correct = results.stream().allMatch(r -> r.mismatched() == 0 && r.missing() == 0);
+        System.out.println(correct ? "All runs matched expected output." : "Some runs did NOT match expected output!");
+        System.exit(correct ? 0 : 2);
+    }
+
+    private static RunResult run(File[] folders, int threads, Map<String, PDFData> expected) throws Exception {
+        System.gc();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeap = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+        ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Benchmark-HeapSampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heapSampler.scheduleAtFixedRate(
+                () -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, HEAP_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+
+        PDFService pdfService = new PDFService();
+        ExcelService excelService = new ExcelService();
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "Benchmark-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (File folder : folders) {
+            futures.add(executor.submit(() -> {
+                pdfService.convertAllPDFs(folder);
+                excelService.convertTxtToExcel(new File(folder, folder.getName() + ".txt"));
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        heapSampler.shutdownNow();
+
+        return verify(folders, threads, seconds, peakHeap.get(), expected, excelService);
+    }
+
+    private static RunResult verify(File[] folders, int threads, double seconds, long peakHeap,
+                                    Map<String, PDFData> expected, ExcelService excelService) throws Exception {
+        int verified = 0;
+        int mismatched = 0;
+        Set<String> seen = new HashSet<>();
+        for (File folder : folders) {
+            for (DataEntry entry : excelService.readDataFromTxt(new File(folder, folder.getName() + ".txt"))) {
+                String key = folder.getName() + "/" + entry.fileName();
+                seen.add(key);
+                PDFData want = expected.get(key);
+                // Compare the TXT rendering: absent fields round-trip through the TXT as "null"
+                if (want != null && want.toString().equals(entry.data().toString())) {
+                    verified++;
+                } else {
+                    mismatched++;
+                    if (mismatched <= 5) {
+                        System.out.println("  mismatch " + key + "\n    expected: " + want + "\n    actual:   " + entry.data());
+                    }
+                }
+            }
+        }
+        int missing = (int) expected.keySet().stream().filter(key -> !seen.contains(key)).count();
+        return new RunResult(threads, seen.size(), seconds, peakHeap, verified, mismatched, missing);
+    }
+
+    private static Map<String, PDFData> readExpected(File expectedFile) throws IOException {
+        Map<String, PDFData> expected = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(expectedFile.toPath(), StandardCharsets.UTF_8)) {
+            reader.readLine(); // header
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] f = line.split("\t", -1);
+                PDFData data = new PDFData(f[2], f[3], f[4], f[5], f[6], f[7], f[8], f[9],
+                        f[10].equals("null") ? null : f[10], f[11], f[12]);
+                expected.put(f[0] + "/" + f[1], data);
+            }
+        }
+        return expected;
+    }
+
+    private static void printResult(RunResult result, RunResult baseline) {
+        double throughput = result.documents() / result.seconds();
+        double efficiency = baseline.seconds() / (result.threads() * result.seconds());
+        System.out.printf("threads=%-3d docs=%-7d time=%8.2fs  throughput=%8.1f files/s  peakHeap=%6d MB  "
+                        + "efficiency=%5.1f%%  verified=%d mismatched=%d missing=%d%n",
+                result.threads(), result.documents(), result.seconds(), throughput,
+                result.peakHeapBytes() >> 20, efficiency * 100,
+                result.verified(), result.mismatched(), result.missing());
+    }
+
+    private static void writeReport(File reportFile, List<RunResult> results) throws IOException {
+        RunResult baseline = results.get(0);
+        try (BufferedWriter writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("threads\tdocuments\tseconds\tfilesPerSecond\tpeakHeapMB\tefficiency\tverified\tmismatched\tmissing\n");
+            for (RunResult result : results) {
+                writer.write(String.format(Locale.ROOT, "%d\t%d\t%.3f\t%.1f\t%d\t%.3f\t%d\t%d\t%d%n",
+                        result.threads(), result.documents(), result.seconds(),
+                        result.documents() / result.seconds(), result.peakHeapBytes() >> 20,
+                        baseline.seconds() / (result.threads() * result.seconds()),
+                        result.verified(), result.mismatched(), result.missing()));
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.lazydev.pdf_convert;
+
+import com.lazydev.pdf_convert.server.ExtractionServer;
+import com.lazydev.pdf_convert.service.ExcelService;
+import com.lazydev.pdf_convert.service.PDFService;
+import com.lazydev.pdf_convert.service.ShardMerger;
+import com.lazydev.pdf_convert.service.ShardWorker;
+import com.lazydev.pdf_convert.util.ConcurrencyGovernor;
+import com.lazydev.pdf_convert.util.StartupMetrics;
+import javafx.application.Application;
+
+import java.awt.GraphicsEnvironment;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Entry point. Not an {@link Application} subclass, so the java launcher does not start the
+ * JavaFX toolkit before {@code main}: the server and headless training modes run without a display.
+ */
+public class AppLauncher {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--server")) {
+            runServer(args);
+            return;
+        }
+        if (args.length > 3 && args[0].equals("--shard-worker")) {
+            runShardWorker(args);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--shard-merge")) {
+            runShardMerge(args);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--train")) {
+            runTraining(new File(args[1]));
+            return;
+        }
+        Application.launch(Main.class, args);
+    }
+
+    /**
+     * Usage: --train &lt;sampleFolder&gt;. Runs one full conversion of a copy of the sample PDFs and
+     * exits, so a JVM started with {@code -XX:ArchiveClassesAtExit} archives every class the start-up
+     * and conversion paths load. Uses the window when a display is available, otherwise converts
+     * headless (PDFBox and POI classes only).
+     */
+    private static void runTraining(File sampleFolder) throws Exception {
+        Path workDir = Files.createTempDirectory("pdf-convert-train");
+        File folder = workDir.resolve(sampleFolder.getName()).toFile();
+        try {
+            Files.createDirectories(folder.toPath());
+            File[] pdfFiles = sampleFolder.listFiles((dir, name) -> name.toLowerCase().endsWith(".pdf"));
+            if (pdfFiles == null || pdfFiles.length == 0) {
+                throw new IllegalArgumentException("No PDF files in training folder: " + sampleFolder);
+            }
+            for (File pdfFile : pdfFiles) {
+                Files.copy(pdfFile.toPath(), folder.toPath().resolve(pdfFile.getName()));
+            }
+
+            boolean trainedWithWindow = false;
+            if (!GraphicsEnvironment.isHeadless()) {
+                try {
+                    Main.trainingFolder = folder;
+                    Application.launch(Main.class);
+                    trainedWithWindow = true;
+                } catch (RuntimeException e) {
+                    System.err.println("Window unavailable (" + e.getMessage() + "), training headless");
+                }
+            }
+            if (!trainedWithWindow) {
+                new PDFService().convertAllPDFs(folder);
+                new ExcelService().convertTxtToExcel(new File(folder, folder.getName() + ".txt"));
+            }
+            System.out.println("Training run finished: " + StartupMetrics.summary());
+        } finally {
+            try (Stream<Path> paths = Files.walk(workDir)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Usage: --shard-worker &lt;workerId&gt; &lt;threads&gt; &lt;folder&gt;... Several of these, on one host
+     * or on hosts sharing the folders, split the PDFs between them; see {@link ShardWorker}.
+     * The lease TTL is {@code -Dpdfconvert.shard.leaseSeconds} (default 60).
+     */
+    private static void runShardWorker(String[] args) throws Exception {
+        Duration leaseTtl = Duration.ofSeconds(Long.getLong("pdfconvert.shard.leaseSeconds", 60));
+        ShardWorker worker = new ShardWorker(args[1], Integer.parseInt(args[2]), leaseTtl);
+        System.out.println(worker.run(folders(args, 3)));
+    }
+
+    // Usage: --shard-merge <folder>... once every worker has exited
+    private static void runShardMerge(String[] args) throws Exception {
+        ShardMerger merger = new ShardMerger(new ExcelService());
+        for (File folder : folders(args, 1)) {
+            System.out.println(merger.merge(folder));
+        }
+    }
+
+    private static List<File> folders(String[] args, int from) {
+        return Arrays.stream(args, from, args.length).map(File::new).toList();
+    }
+
+    // Usage: --server [port] [maxConcurrentRequests]
+    private static void runServer(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : ExtractionServer.DEFAULT_PORT;
+        int maxConcurrent = args.length > 2
+                ? Integer.parseInt(args[2])
+                : ConcurrencyGovernor.maxWorkers();
+
+        ExtractionServer server = new ExtractionServer(port, maxConcurrent, new PDFService());
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            stopped.countDown();
+        }));
+        server.start();
+        stopped.await();
+    }
+}
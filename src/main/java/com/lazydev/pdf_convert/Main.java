@@ -1,24 +1,40 @@
 package com.lazydev.pdf_convert;
 
+import com.lazydev.pdf_convert.controller.PDFConvertController;
+import com.lazydev.pdf_convert.util.StartupMetrics;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.io.File;
 import java.io.IOException;
 
 public class Main extends Application {
 
-    public static void main(String[] args) {
-        launch(args);
+    // Set by AppLauncher for --train: convert this folder once the window is up, then exit
+    static File trainingFolder;
+
+    public static void main(String[] args) throws Exception {
+        AppLauncher.main(args);
     }
 
     @Override
     public void start(Stage primaryStage) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("fxml/main-view.fxml"));
-        Scene scene = new Scene(fxmlLoader.load(), 500, 700);
+        Scene scene = new Scene(fxmlLoader.load(), 760, 880);
         primaryStage.setTitle("PDF Convert Tool");
         primaryStage.setScene(scene);
         primaryStage.show();
+        StartupMetrics.markWindowShown();
+
+        if (trainingFolder != null) {
+            PDFConvertController controller = fxmlLoader.getController();
+            controller.convertOnStartup(trainingFolder, () -> {
+                controller.shutdown();
+                Platform.exit();
+            });
+        }
     }
 }
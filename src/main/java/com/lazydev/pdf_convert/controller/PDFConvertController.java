@@ -1,7 +1,16 @@
 package com.lazydev.pdf_convert.controller;
 
+import com.lazydev.pdf_convert.model.ResultRow;
+import com.lazydev.pdf_convert.service.ConsolidatedWorkbookBuilder;
 import com.lazydev.pdf_convert.service.ExcelService;
+import com.lazydev.pdf_convert.service.FolderScheduler;
 import com.lazydev.pdf_convert.service.PDFService;
+import com.lazydev.pdf_convert.service.TerminalIndexService;
+import com.lazydev.pdf_convert.sink.CsvResultSink;
+import com.lazydev.pdf_convert.sink.JsonLinesResultSink;
+import com.lazydev.pdf_convert.sink.ResultSink;
+import com.lazydev.pdf_convert.sink.XlsxResultSink;
+import com.lazydev.pdf_convert.util.ConcurrencyGovernor;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
@@ -10,14 +19,23 @@ import javafx.beans.property.*;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.control.cell.CheckBoxListCell;
 import javafx.scene.input.DragEvent;
 import javafx.scene.input.Dragboard;
 import javafx.scene.input.TransferMode;
 import javafx.scene.layout.VBox;
 import javafx.stage.DirectoryChooser;
 import javafx.util.Duration;
+import javafx.util.StringConverter;
 
 import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -31,15 +49,33 @@ public class PDFConvertController {
     @FXML private Button convertButton;
     @FXML private Label progressLabel;
     @FXML private Label timerLabel;
+    @FXML private TextField lookupField;
+    @FXML private CheckBox consolidateCheckBox;
+    @FXML private CheckBox incrementalCheckBox;
+    @FXML private CheckBox csvCheckBox;
+    @FXML private CheckBox jsonlCheckBox;
+    @FXML private ListView<File> folderListView;
+    @FXML private TableView<ResultRow> resultTable;
+    @FXML private TextField resultFilterField;
+    @FXML private CheckBox missingOnlyCheckBox;
+    @FXML private Label resultCountLabel;
+
+    // Room for the concurrency governor to grow; it decides how many folders actually extract at once
+    private static final int POOL_SIZE = ConcurrencyGovernor.maxWorkers();
 
     private File[] selectedFolders;
+    private final Map<File, BooleanProperty> pinnedFolders = new HashMap<>();
     private volatile boolean isCancelled;
-    private final ExecutorService executorService;
-    private final PDFService pdfService;
+    // Created on first use so the window shows before the worker pool, PDFBox and POI load
+    private ExecutorService executorService;
+    private PDFService pdfService;
     private final StringProperty progressMessage = new SimpleStringProperty();
     private final SimpleBooleanProperty converting = new SimpleBooleanProperty(false);
     private Task<Void> currentTask;
-    private final ExcelService excelService;
+    private ExcelService excelService;
+    private TerminalIndexService terminalIndex;
+    private Runnable onConversionFinished;
+    private ResultTableFeed resultFeed;
 
     private final SimpleDoubleProperty progress = new SimpleDoubleProperty(0);
     private long startTime;
@@ -51,21 +87,41 @@ public class PDFConvertController {
     //private volatile int totalFiles = 0;
     //private volatile int processedFiles = 0;
 
-    public PDFConvertController() {
-        this.executorService = Executors.newFixedThreadPool(
-                Runtime.getRuntime().availableProcessors(),
-                new ThreadFactory() {
-                    private final AtomicInteger counter = new AtomicInteger();
-                @Override
-                public Thread newThread(Runnable r) {
-                        Thread thread = new Thread(r);
-                        thread.setName("PDFConverter-" + counter.incrementAndGet());
-                        thread.setDaemon(true);
-                    return thread;
-            }
-        });
-        this.pdfService = new PDFService();
-        this.excelService = new ExcelService();
+    private synchronized ExecutorService executor() {
+        // Also recreates the pool after a cancel shut it down
+        if (executorService == null || executorService.isShutdown()) {
+            AtomicInteger counter = new AtomicInteger();
+            executorService = Executors.newFixedThreadPool(POOL_SIZE, r -> {
+                Thread thread = new Thread(r);
+                thread.setName("PDFConverter-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executorService;
+    }
+
+    private synchronized PDFService pdfService() {
+        if (pdfService == null) {
+            pdfService = new PDFService();
+            pdfService.setTerminalIndex(terminalIndex());
+            pdfService.setRecordListener(resultFeed::offer);
+        }
+        return pdfService;
+    }
+
+    private synchronized ExcelService excelService() {
+        if (excelService == null) {
+            excelService = new ExcelService();
+        }
+        return excelService;
+    }
+
+    private synchronized TerminalIndexService terminalIndex() {
+        if (terminalIndex == null) {
+            terminalIndex = new TerminalIndexService(TerminalIndexService.defaultIndexFile());
+        }
+        return terminalIndex;
     }
 
     private enum ConversionType {
@@ -82,6 +138,8 @@ public class PDFConvertController {
         setupDragAndDrop();
         setupButtons();
         setupTimer();
+        setupFolderList();
+        resultFeed = new ResultTableFeed(resultTable, resultFilterField, missingOnlyCheckBox, resultCountLabel);
 
         progressBar.progressProperty().bind(totalProgress);
 
@@ -89,6 +147,35 @@ public class PDFConvertController {
         cancelButton.disableProperty().bind(converting.not());
     }
 
+    private void setupFolderList() {
+        folderListView.setCellFactory(CheckBoxListCell.forListView(
+                folder -> pinnedFolders.computeIfAbsent(folder, f -> new SimpleBooleanProperty(false)),
+                new StringConverter<>() {
+                    @Override
+                    public String toString(File folder) {
+                        return folder.getName();
+                    }
+
+                    @Override
+                    public File fromString(String name) {
+                        return null;
+                    }
+                }));
+    }
+
+    private void setSelectedFolders(File[] folders) {
+        selectedFolders = folders;
+        pinnedFolders.clear();
+        folderListView.getItems().setAll(folders);
+    }
+
+    private List<File> pinnedFolders() {
+        return pinnedFolders.entrySet().stream()
+                .filter(entry -> entry.getValue().get())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
     private void setupButtons() {
         convertButton.setOnAction(event -> convertData());
         cancelButton.setOnAction(event -> cancelOperation());
@@ -139,21 +226,58 @@ public class PDFConvertController {
         startConversion(ConversionType.BOTH);
     }
 
+    /**
+     * Converts {@code folder} (PDF to TXT to Excel) right after start-up and runs
+     * {@code onFinished} on the FX thread when done. Used by {@code --train}.
+     */
+    public void convertOnStartup(File folder, Runnable onFinished) {
+        setSelectedFolders(new File[]{folder});
+        pdfPathField.setText(folder.getAbsolutePath());
+        onConversionFinished = onFinished;
+        startConversion(ConversionType.BOTH);
+    }
+
     private void startConversion(ConversionType type) {
         isCancelled = false;
-        currentTask = createConversionTask(type);
+        ConsolidatedWorkbookBuilder workbookBuilder =
+                consolidateCheckBox.isSelected() && type != ConversionType.PDF_TO_TXT
+                        ? new ConsolidatedWorkbookBuilder(selectedFolders, excelService())
+                        : null;
+        boolean incremental = incrementalCheckBox.isSelected();
+        List<ResultSink.Factory> extraSinks = new ArrayList<>();
+        if (type != ConversionType.TXT_TO_EXCEL) {
+            if (csvCheckBox.isSelected()) {
+                extraSinks.add(CsvResultSink.factory());
+            }
+            if (jsonlCheckBox.isSelected()) {
+                extraSinks.add(JsonLinesResultSink.factory());
+            }
+        }
+        // A full run builds the XLSX from the extracted records instead of re-reading the TXT
+        boolean xlsxFromRecords = type == ConversionType.BOTH && !incremental && workbookBuilder == null;
+        if (xlsxFromRecords) {
+            extraSinks.add(XlsxResultSink.factory(excelService()));
+        }
+        currentTask = createConversionTask(type, workbookBuilder, incremental, pinnedFolders(), extraSinks,
+                xlsxFromRecords);
         configureTaskBindings(currentTask);
 
         converting.set(true);
+        resultFeed.start();
 
         new Thread(currentTask).start();
     }
 
-    private Task<Void> createConversionTask(ConversionType type) {
+    private Task<Void> createConversionTask(ConversionType type, ConsolidatedWorkbookBuilder workbookBuilder,
+                                            boolean incremental, List<File> pinned,
+                                            List<ResultSink.Factory> extraSinks, boolean xlsxFromRecords) {
         return new Task<>() {
             @Override
             protected Void call() {
                 try {
+                    if (type != ConversionType.TXT_TO_EXCEL) {
+                        pdfService().setExtraSinks(extraSinks);
+                    }
                     startTime = System.currentTimeMillis();
                     Platform.runLater(() ->{
                         startTime = System.currentTimeMillis();
@@ -168,27 +292,43 @@ public class PDFConvertController {
                     // initial progress label
                     updateProgressLabel(0, totalTasks);
 
-                    for (File folder : selectedFolders) {
+                    // Pinned and small folders first, big ones started early enough not to stretch the run
+                    // Planned for the files that actually extract at once, not for the pool's headroom
+                    List<File> folders = FolderScheduler.order(selectedFolders, pinned,
+                            ConcurrencyGovernor.get().snapshot().limit());
+                    for (File folder : folders) {
                         if (isCancelled) {
                             updateMessage("Tác vụ đã bị hủy.");
                             break;
                         }
 
-                        processFolderWithType(folder, completedTasks, totalTasks, type, latch);
+                        processFolderWithType(folder, completedTasks, totalTasks, type, latch, workbookBuilder,
+                                incremental, xlsxFromRecords);
                     }
                     latch.await();
+
+                    if (workbookBuilder != null && !isCancelled) {
+                        writeConsolidatedWorkbook(workbookBuilder);
+                    }
                     return null;
                 }catch ( InterruptedException e) {
                     Thread.currentThread().interrupt();
                     return null;
                 } finally {
+                    if (workbookBuilder != null) {
+                        workbookBuilder.discard();
+                    }
                     Platform.runLater(() -> {
                         converting.set(false);
+                        resultFeed.finish();
                         timer.stop();
                         // Lưu tổng thời gian xử lý
                         long totalTime = (System.currentTimeMillis() - startTime) / 1000;
                         setStatus(String.format("Hoàn thành! Tổng thời gian xử lý: %02d:%02d:%02d",
                                 totalTime / 3600, (totalTime % 3600) / 60, totalTime % 60), "green");
+                        if (onConversionFinished != null) {
+                            onConversionFinished.run();
+                        }
                     });
                 }
             }
@@ -225,8 +365,10 @@ public class PDFConvertController {
 //        });
 //    }
 
-    private void processFolderWithType(File folder, AtomicInteger completedTasks,
-                                        int totalTasks, ConversionType type, CountDownLatch latch) {
+    private void processFolderWithType(File folder, AtomicInteger completedTasks, int totalTasks,
+                                        ConversionType type, CountDownLatch latch,
+                                        ConsolidatedWorkbookBuilder workbookBuilder, boolean incremental,
+                                        boolean xlsxFromRecords) {
         if (!folder.isDirectory()) {
             updateTaskMessage("Thư mục không hợp lệ: " + folder.getName());
             latch.countDown();
@@ -242,7 +384,9 @@ public class PDFConvertController {
 
                     // PDF conversion phase (50% of folder progress)
                     if (type == ConversionType.PDF_TO_TXT || type == ConversionType.BOTH) {
-                        String pdfResult = pdfService.convertAllPDFs(folder);
+                        String pdfResult = incremental
+                                ? pdfService().convertNewPDFs(folder)
+                                : pdfService().convertAllPDFs(folder);
                         updateTaskStatus(pdfResult, folder.getName());
 
                         // Update progress for PDF phase
@@ -257,9 +401,23 @@ public class PDFConvertController {
                     if (type == ConversionType.TXT_TO_EXCEL || type == ConversionType.BOTH) {
                         File txtFile = new File(folder, folder.getName() + ".txt");
                         if (txtFile.exists()) {
-                            excelService.convertTxtToExcel(txtFile);
-                            updateTaskStatus("Chuyển đổi Excel thành công: " + folder.getName(),
-                                    folder.getName());
+                            if (workbookBuilder != null) {
+                                workbookBuilder.addFolder(folder, excelService().readDataFromTxt(txtFile));
+                                updateTaskStatus("Đã thêm vào file Excel tổng hợp: " + folder.getName(),
+                                        folder.getName());
+                            } else if (xlsxFromRecords) {
+                                // Already written by the extraction pass
+                                updateTaskStatus("Chuyển đổi Excel thành công: " + folder.getName(),
+                                        folder.getName());
+                            } else if (incremental) {
+                                excelService().appendTxtToExcel(txtFile);
+                                updateTaskStatus("Bổ sung Excel thành công: " + folder.getName(),
+                                        folder.getName());
+                            } else {
+                                excelService().convertTxtToExcel(txtFile);
+                                updateTaskStatus("Chuyển đổi Excel thành công: " + folder.getName(),
+                                        folder.getName());
+                            }
 
                             // Update progress for Excel phase
                             Platform.runLater(() -> {
@@ -288,7 +446,7 @@ public class PDFConvertController {
             }
         };
 
-        executorService.submit(folderTask);
+        executor().submit(folderTask);
     }
 //
 //    private void updateFolderProgress(int completedFolders, int totalFolders, double folderProgress) {
@@ -297,6 +455,17 @@ public class PDFConvertController {
 //        Platform.runLater(() -> progress.set(totalProgress));
 //    }
 
+    private void writeConsolidatedWorkbook(ConsolidatedWorkbookBuilder workbookBuilder) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        File outputFile = workbookBuilder.defaultOutputFile(timestamp);
+        try {
+            workbookBuilder.write(outputFile);
+            setStatus("Đã tạo file Excel tổng hợp: " + outputFile.getAbsolutePath(), "green");
+        } catch (IOException e) {
+            setStatus("Lỗi tạo file Excel tổng hợp: " + e.getMessage(), "red");
+        }
+    }
+
     private void updateTaskStatus(String message, String fileName) {
         Platform.runLater(() -> {
             setStatus(fileName + ": " + message, "black");
@@ -380,9 +549,9 @@ public class PDFConvertController {
         boolean success = false;
 
         if (db.hasFiles()) {
-            selectedFolders = db.getFiles().stream()
+            setSelectedFolders(db.getFiles().stream()
                     .filter(File::isDirectory)
-                    .toArray(File[]::new);
+                    .toArray(File[]::new));
 
             if (selectedFolders.length > 0) {
                 pdfPathField.setText(String.join(", ",
@@ -406,7 +575,11 @@ public class PDFConvertController {
         if (currentTask != null) {
             currentTask.cancel(true);
         }
-        executorService.shutdownNow();
+        synchronized (this) {
+            if (executorService != null) {
+                executorService.shutdownNow();
+            }
+        }
 
         Platform.runLater(() -> {
             totalProgress.set(0);
@@ -428,12 +601,53 @@ public class PDFConvertController {
         File selectedDirectory = directoryChooser.showDialog(dropArea.getScene().getWindow());
 
         if (selectedDirectory != null) {
-            selectedFolders = new File[]{selectedDirectory};
+            setSelectedFolders(new File[]{selectedDirectory});
             pdfPathField.setText(selectedDirectory.getAbsolutePath());
             setStatus("Đã chọn thư mục: " + selectedDirectory.getName(), "black");
         }
     }
 
+    @FXML
+    private void lookupTerminal() {
+        String key = lookupField.getText() == null ? "" : lookupField.getText().trim();
+        if (key.isEmpty()) {
+            showError("Hãy nhập TID, MID hoặc số serial!");
+            return;
+        }
+
+        Task<List<TerminalIndexService.Sighting>> lookupTask = new Task<>() {
+            @Override
+            protected List<TerminalIndexService.Sighting> call() {
+                List<TerminalIndexService.Sighting> result = terminalIndex().findByTerminalId(key);
+                if (result.isEmpty()) {
+                    result = terminalIndex().findByMerchantId(key);
+                }
+                if (result.isEmpty()) {
+                    result = terminalIndex().findBySerialNumber(key);
+                }
+                return result;
+            }
+        };
+        lookupTask.setOnSucceeded(event -> {
+            List<TerminalIndexService.Sighting> sightings = lookupTask.getValue();
+            if (sightings.isEmpty()) {
+                setStatus("Không tìm thấy: " + key, "black");
+                return;
+            }
+            setStatus("Tìm thấy " + sightings.size() + " kết quả cho " + key + ":", "black");
+            for (TerminalIndexService.Sighting sighting : sightings) {
+                setStatus(String.format("  %s%s%s - TID: %s, MID: %s, Số serial: %s",
+                        sighting.folder(), File.separator, sighting.fileName(),
+                        sighting.terminalId(), sighting.merchantId(), sighting.serialNumber()), "black");
+            }
+        });
+        lookupTask.setOnFailed(event -> setStatus("Lỗi tra cứu: " + lookupTask.getException().getMessage(), "red"));
+
+        Thread thread = new Thread(lookupTask);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     @FXML
 //    private void convertToExcel() {
 //        if (selectedFolders == null || selectedFolders.length == 0) {
@@ -465,14 +679,27 @@ public class PDFConvertController {
 //    }
 
     public void shutdown() {
-        executorService.shutdown();
-        try {
-            if (!executorService.awaitTermination(800, TimeUnit.MILLISECONDS)) {
-                executorService.shutdownNow();
+        TerminalIndexService index;
+        ExecutorService executor;
+        synchronized (this) {
+            index = terminalIndex;
+            executor = executorService;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(800, TimeUnit.MILLISECONDS)) {
+                    executor.shutdownNow();
+                    executor.awaitTermination(800, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
             }
-        } catch (InterruptedException e) {
-            executorService.shutdownNow();
-            Thread.currentThread().interrupt();
+        }
+        // Close only after the folder tasks have stopped; any straggler's record() is then a no-op.
+        if (index != null) {
+            index.close();
         }
     }
 
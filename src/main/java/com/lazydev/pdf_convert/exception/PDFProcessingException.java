@@ -2,15 +2,44 @@ package com.lazydev.pdf_convert.exception;
 
 public class PDFProcessingException extends RuntimeException {
 
+    public enum FailureCategory {
+        TIMEOUT,
+        MEMORY_LIMIT,
+        ENCRYPTED,
+        DAMAGED,
+        NO_TEXT_LAYER,
+        NO_DATA,
+        IO_ERROR,
+        CANCELLED,
+        UNKNOWN
+    }
+
+    private final FailureCategory category;
+
     public PDFProcessingException(String message) {
-        super(message);
+        this(FailureCategory.UNKNOWN, message);
     }
 
     public PDFProcessingException(String message, Throwable cause) {
-        super(message, cause);
+        this(FailureCategory.UNKNOWN, message, cause);
     }
 
     public PDFProcessingException(Throwable cause) {
         super(cause);
+        this.category = FailureCategory.UNKNOWN;
+    }
+
+    public PDFProcessingException(FailureCategory category, String message) {
+        super(message);
+        this.category = category;
+    }
+
+    public PDFProcessingException(FailureCategory category, String message, Throwable cause) {
+        super(message, cause);
+        this.category = category;
+    }
+
+    public FailureCategory getCategory() {
+        return category;
     }
-}
\ No newline at end of file
+}
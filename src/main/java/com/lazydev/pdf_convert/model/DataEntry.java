@@ -0,0 +1,3 @@
+package com.lazydev.pdf_convert.model;
+
+public record DataEntry(PDFData data, String fileName) { }
@@ -0,0 +1,31 @@
+package com.lazydev.pdf_convert.model;
+
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * One extracted record as shown in the live results table. The search text and the missing-field
+ * flag are computed once, on the worker thread that built the row, so filtering and styling 100k
+ * rows on the FX thread does no per-row string work.
+ */
+public record ResultRow(String folder, String fileName, PDFData data, String searchText, boolean missingFields) {
+
+    public static ResultRow of(String folder, String fileName, PDFData data) {
+        String searchText = Stream.of(folder, fileName, data.getBusinessName(), data.getAddress(),
+                        data.getSerialNumber(), data.getPosDevice(), data.getGroupName(), data.getNotes(),
+                        data.getMerchantId(), data.getTerminalId(), data.getTerminalId00(),
+                        data.getTerminalVtopId(), data.getPosVtop())
+                .map(value -> value == null ? "" : value)
+                .collect(Collectors.joining("\n"))
+                .toLowerCase(Locale.ROOT);
+        boolean missing = Stream.of(data.getBusinessName(), data.getAddress(), data.getSerialNumber(),
+                        data.getMerchantId(), data.getTerminalId())
+                .anyMatch(ResultRow::isMissing);
+        return new ResultRow(folder, fileName, data, searchText, missing);
+    }
+
+    public static boolean isMissing(String value) {
+        return value == null || value.isBlank();
+    }
+}
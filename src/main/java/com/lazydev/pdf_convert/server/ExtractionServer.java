@@ -0,0 +1,281 @@
+package com.lazydev.pdf_convert.server;
+
+import com.lazydev.pdf_convert.exception.PDFProcessingException;
+import com.lazydev.pdf_convert.exception.PDFProcessingException.FailureCategory;
+import com.lazydev.pdf_convert.model.PDFData;
+import com.lazydev.pdf_convert.service.PDFService;
+import com.lazydev.pdf_convert.util.ConcurrencyGovernor;
+import com.lazydev.pdf_convert.util.JsonUtil;
+import com.lazydev.pdf_convert.util.LatencyHistogram;
+import com.lazydev.pdf_convert.util.ThreadPoolUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded HTTP front end for the extraction engine, built on the JDK's {@code HttpServer}.
+ * <ul>
+ *     <li>{@code POST /extract} with a PDF body ({@code ?name=} optional) returns one record</li>
+ *     <li>{@code POST /extract/batch} with a {@code multipart/form-data} body returns one result per part</li>
+ *     <li>{@code GET /metrics} returns request counters, latency percentiles and the
+ *     {@link ConcurrencyGovernor}'s current limit and last decision</li>
+ *     <li>{@code GET /health} returns {@code ok}</li>
+ * </ul>
+ * Requests run on {@link ThreadPoolUtil}'s worker pool. At most {@code maxConcurrentRequests}
+ * are admitted at once; others wait up to {@link #QUEUE_TIMEOUT_MILLIS} and then get a 503.
+ * A body is only read once its request is admitted, and a declared Content-Length over
+ * {@link #MAX_BODY_BYTES} is refused before that. Admitted documents are extracted as the governor's limit allows.
+ * Every response carries a Content-Length so connections stay open for keep-alive.
+ */
+public class ExtractionServer {
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionServer.class);
+
+    public static final int DEFAULT_PORT = 8085;
+    private static final long QUEUE_TIMEOUT_MILLIS = 2_000;
+    private static final int MAX_BODY_BYTES = 64 << 20;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final int port;
+    private final int maxConcurrentRequests;
+    private final PDFService pdfService;
+    private final Semaphore permits;
+    private HttpServer server;
+
+    private final LatencyHistogram extractLatency = new LatencyHistogram();
+    private final LatencyHistogram batchLatency = new LatencyHistogram();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder documents = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ExtractionServer(int port, int maxConcurrentRequests, PDFService pdfService) {
+        this.port = port;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.pdfService = pdfService;
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/extract", this::handleExtract);
+        server.createContext("/metrics", this::handleMetrics);
+        server.createContext("/health", exchange -> send(exchange, 200, "text/plain", "ok"));
+        server.setExecutor(ThreadPoolUtil.getExecutorService());
+        server.start();
+        logger.info("Extraction server listening on port {} (max {} concurrent requests)",
+                port, maxConcurrentRequests);
+    }
+
+    public void stop(int delaySeconds) {
+        if (server != null) {
+            server.stop(delaySeconds);
+        }
+    }
+
+    private void handleExtract(HttpExchange exchange) throws IOException {
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Method not allowed", null);
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        boolean batch = path.equals("/extract/batch");
+        if (!batch && !path.equals("/extract")) {
+            sendError(exchange, 404, "Not found", null);
+            return;
+        }
+
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null && parseLength(contentLength) > MAX_BODY_BYTES) {
+            sendTooLarge(exchange);
+            return;
+        }
+
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(QUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendError(exchange, 503, "Server busy", null);
+            return;
+        }
+
+        long start = System.nanoTime();
+        inFlight.incrementAndGet();
+        try {
+            // Chunked bodies have no declared length and are cut off while reading
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                sendTooLarge(exchange);
+                return;
+            }
+            if (batch) {
+                handleBatch(exchange, body);
+            } else {
+                handleSingle(exchange, body);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+            permits.release();
+            (batch ? batchLatency : extractLatency).recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    private void handleSingle(HttpExchange exchange, byte[] body) throws IOException {
+        String fileName = queryParameter(exchange, "name", "document.pdf");
+        StringBuilder json = new StringBuilder(512);
+        int status = appendResult(json, fileName, body);
+        send(exchange, status, JSON, json.toString());
+    }
+
+    private void handleBatch(HttpExchange exchange, byte[] body) throws IOException {
+        String boundary = MultipartParser.boundaryOf(exchange.getRequestHeaders().getFirst("Content-Type"));
+        if (boundary == null) {
+            failed.increment();
+            sendError(exchange, 400, "Expected multipart/form-data with a boundary", null);
+            return;
+        }
+
+        List<MultipartParser.Part> parts = MultipartParser.parse(body, boundary);
+        StringBuilder json = new StringBuilder(512 * Math.max(1, parts.size()));
+        json.append("{\"results\":[");
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            MultipartParser.Part part = parts.get(i);
+            appendResult(json, part.fileName(), part.content());
+        }
+        json.append("]}");
+        send(exchange, 200, JSON, json.toString());
+    }
+
+    private int appendResult(StringBuilder json, String fileName, byte[] pdfBytes) {
+        documents.increment();
+        json.append('{');
+        JsonUtil.appendField(json, "fileName", fileName).append(',');
+        try {
+            PDFData data = pdfService.extract(pdfBytes, fileName);
+            if (data == null) {
+                throw new PDFProcessingException(FailureCategory.NO_DATA, "Không tìm thấy dữ liệu cần thiết");
+            }
+            json.append("\"data\":");
+            JsonUtil.appendPDFData(json, data);
+            json.append('}');
+            succeeded.increment();
+            return 200;
+        } catch (PDFProcessingException e) {
+            failed.increment();
+            JsonUtil.appendField(json, "error", e.getMessage()).append(',');
+            JsonUtil.appendField(json, "category", e.getCategory().name());
+            json.append('}');
+            return 422;
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        StringBuilder json = new StringBuilder(512);
+        json.append('{');
+        JsonUtil.appendField(json, "succeeded", succeeded.sum()).append(',');
+        JsonUtil.appendField(json, "failed", failed.sum()).append(',');
+        JsonUtil.appendField(json, "rejected", rejected.sum()).append(',');
+        JsonUtil.appendField(json, "documents", documents.sum()).append(',');
+        JsonUtil.appendField(json, "inFlight", inFlight.get()).append(',');
+        JsonUtil.appendField(json, "maxConcurrentRequests", maxConcurrentRequests).append(',');
+        json.append("\"extract\":");
+        appendLatency(json, extractLatency);
+        json.append(",\"batch\":");
+        appendLatency(json, batchLatency);
+        json.append(",\"governor\":");
+        ConcurrencyGovernor.get().appendJson(json);
+        json.append('}');
+        send(exchange, 200, JSON, json.toString());
+    }
+
+    private void appendLatency(StringBuilder json, LatencyHistogram histogram) {
+        json.append('{');
+        JsonUtil.appendField(json, "count", histogram.count()).append(',');
+        JsonUtil.appendField(json, "meanMicros", Math.round(histogram.meanMicros())).append(',');
+        JsonUtil.appendField(json, "p50Micros", histogram.percentileMicros(50)).append(',');
+        JsonUtil.appendField(json, "p90Micros", histogram.percentileMicros(90)).append(',');
+        JsonUtil.appendField(json, "p99Micros", histogram.percentileMicros(99)).append(',');
+        JsonUtil.appendField(json, "maxMicros", histogram.maxMicros());
+        json.append('}');
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message, String category) throws IOException {
+        StringBuilder json = new StringBuilder("{");
+        JsonUtil.appendField(json, "error", message);
+        if (category != null) {
+            json.append(',');
+            JsonUtil.appendField(json, "category", category);
+        }
+        json.append('}');
+        send(exchange, status, JSON, json.toString());
+    }
+
+    private void sendTooLarge(HttpExchange exchange) throws IOException {
+        // Unread body: close the connection rather than drain it for keep-alive
+        exchange.getResponseHeaders().set("Connection", "close");
+        sendError(exchange, 413, "Request body exceeds " + (MAX_BODY_BYTES >> 20) + " MB", null);
+    }
+
+    private static long parseLength(String contentLength) {
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    /**
+     * @return the body, or {@code null} when it is larger than {@link #MAX_BODY_BYTES}
+     */
+    private static byte[] readBody(InputStream inputStream) throws IOException {
+        try (inputStream) {
+            byte[] body = inputStream.readNBytes(MAX_BODY_BYTES + 1);
+            return body.length > MAX_BODY_BYTES ? null : body;
+        }
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name, String defaultValue) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return defaultValue;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && pair.substring(0, separator).equals(name)) {
+                return URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,83 @@
+package com.lazydev.pdf_convert.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a buffered {@code multipart/form-data} body into its file parts; plain form fields
+ * (parts without a {@code filename}) are skipped.
+ */
+class MultipartParser {
+    private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^\";]+)\"?");
+    private static final Pattern FILE_NAME = Pattern.compile("filename=\"([^\"]*)\"");
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+
+    record Part(String fileName, byte[] content) { }
+
+    private MultipartParser() {
+    }
+
+    static String boundaryOf(String contentType) {
+        if (contentType == null || !contentType.toLowerCase().startsWith("multipart/form-data")) {
+            return null;
+        }
+        Matcher matcher = BOUNDARY.matcher(contentType);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    static List<Part> parse(byte[] body, String boundary) {
+        byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        List<Part> parts = new ArrayList<>();
+
+        int position = indexOf(body, delimiter, 0);
+        while (position >= 0) {
+            int partStart = position + delimiter.length;
+            // "--" right after the delimiter closes the body
+            if (partStart + 1 < body.length && body[partStart] == '-' && body[partStart + 1] == '-') {
+                break;
+            }
+            int headerStart = partStart + 2; // skip CRLF
+            int headerEnd = indexOf(body, HEADER_END, headerStart);
+            if (headerEnd < 0) {
+                break;
+            }
+            int next = indexOf(body, delimiter, headerEnd + HEADER_END.length);
+            if (next < 0) {
+                break;
+            }
+
+            String headers = new String(body, headerStart, headerEnd - headerStart, StandardCharsets.UTF_8);
+            int contentStart = headerEnd + HEADER_END.length;
+            int contentEnd = next - 2; // CRLF before the next delimiter
+            String fileName = fileNameOf(headers);
+            if (fileName != null && contentEnd >= contentStart) {
+                byte[] content = new byte[contentEnd - contentStart];
+                System.arraycopy(body, contentStart, content, 0, content.length);
+                parts.add(new Part(fileName, content));
+            }
+            position = next;
+        }
+        return parts;
+    }
+
+    private static String fileNameOf(String headers) {
+        Matcher fileName = FILE_NAME.matcher(headers);
+        return fileName.find() && !fileName.group(1).isBlank() ? fileName.group(1) : null;
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern, int from) {
+        outer:
+        for (int i = Math.max(0, from); i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
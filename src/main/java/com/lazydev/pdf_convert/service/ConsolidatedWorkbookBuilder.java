@@ -0,0 +1,109 @@
+package com.lazydev.pdf_convert.service;
+
+import com.lazydev.pdf_convert.model.DataEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Collects sheet data for a multi-folder run into one workbook. Each folder task calls
+ * {@link #addFolder} from its own worker thread as soon as the folder finishes, which measures
+ * the columns and serializes and compresses the folder's own sheet right there, so that work runs
+ * concurrently; {@link #write} then only streams the combined sheet and splices in the rest.
+ * The compressed sheets wait in temp files, which {@link #write} or {@link #discard} deletes.
+ */
+public class ConsolidatedWorkbookBuilder {
+    private static final Logger logger = LoggerFactory.getLogger(ConsolidatedWorkbookBuilder.class);
+
+    record FolderSheet(String folderName, List<DataEntry> entries, int[] columnWidths,
+                       List<StreamingXlsxWriter.CompressedSheet> sheets) { }
+
+    private final File[] folders;
+    private final AtomicReferenceArray<FolderSheet> sheets;
+    private final ExcelService excelService;
+    private boolean discarded;
+
+    public ConsolidatedWorkbookBuilder(File[] folders, ExcelService excelService) {
+        this.folders = folders.clone();
+        this.sheets = new AtomicReferenceArray<>(folders.length);
+        this.excelService = excelService;
+    }
+
+    public void addFolder(File folder, List<DataEntry> entries) throws IOException {
+        int index = indexOf(folder);
+        if (index < 0) {
+            throw new IllegalArgumentException("Folder is not part of this run: " + folder.getPath());
+        }
+        int[] columnWidths = ExcelService.measureColumns(entries);
+        FolderSheet sheet = new FolderSheet(folder.getName(), entries, columnWidths,
+                excelService.compressFolderSheets(folder.getName(), entries, columnWidths));
+        synchronized (this) {
+            if (!discarded) {
+                sheets.set(index, sheet);
+                return;
+            }
+        }
+        // The run was cancelled while this folder was compressing
+        deleteSpilled(sheet);
+    }
+
+    /**
+     * Writes the collected sheets in the order the folders were selected. Folders that failed
+     * or were cancelled before {@link #addFolder} are skipped.
+     */
+    public File write(File outputFile) throws IOException {
+        List<FolderSheet> ready = new ArrayList<>();
+        for (int i = 0; i < sheets.length(); i++) {
+            FolderSheet sheet = sheets.get(i);
+            if (sheet != null) {
+                ready.add(sheet);
+            } else {
+                logger.warn("Skipping folder without data in consolidated workbook: {}", folders[i].getName());
+            }
+        }
+        try {
+            excelService.createConsolidatedExcelFile(ready, outputFile);
+        } finally {
+            discard();
+        }
+        return outputFile;
+    }
+
+    /**
+     * Deletes the spilled sheets of a run that will not be written; folders finishing later are dropped.
+     */
+    public void discard() {
+        synchronized (this) {
+            discarded = true;
+        }
+        for (int i = 0; i < sheets.length(); i++) {
+            FolderSheet sheet = sheets.getAndSet(i, null);
+            if (sheet != null) {
+                deleteSpilled(sheet);
+            }
+        }
+    }
+
+    public File defaultOutputFile(String timestamp) {
+        File parent = folders[0].getAbsoluteFile().getParentFile();
+        return new File(parent != null ? parent : folders[0], "TongHop_" + timestamp + ".xlsx");
+    }
+
+    private static void deleteSpilled(FolderSheet sheet) {
+        sheet.sheets().forEach(StreamingXlsxWriter.CompressedSheet::delete);
+    }
+
+    private int indexOf(File folder) {
+        for (int i = 0; i < folders.length; i++) {
+            if (folders[i].equals(folder)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,16 +1,26 @@
 // ExcelService.java
 package com.lazydev.pdf_convert.service;
 
+import com.lazydev.pdf_convert.model.DataEntry;
 import com.lazydev.pdf_convert.model.PDFData;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.lazydev.pdf_convert.util.ThreadPoolUtil;
+import com.lazydev.pdf_convert.util.TxtArchiveReader;
+import org.apache.poi.ss.util.WorkbookUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ExcelService {
     private static final Logger logger = LoggerFactory.getLogger(ExcelService.class);
@@ -21,6 +31,73 @@ public class ExcelService {
                 "TID V-TOP", "POS V-TOP"
     };
 
+    private static final String COMBINED_SHEET_NAME = "Tổng hợp";
+    private static final String FOLDER_HEADER = "Thư mục";
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+    private static final String DATA_SHEET_NAME = "POS Data";
+    private static final String INDEX_EXTENSION = ".index.tsv";
+    private static final String MANIFEST_EXTENSION = ".manifest";
+    private static final String MANIFEST_OFFSET_KEY = "txt-offset\t";
+    // XLSX allows 1,048,576 rows per sheet, one of which is the header
+    public static final int MAX_DATA_ROWS_PER_SHEET = 1_048_575;
+    private static final int ROW_XML_OVERHEAD = 32;
+    private static final int CELL_XML_OVERHEAD = 48;
+    public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+
+    /**
+     * Limits that make {@code createExcelFile} roll over to a new sheet or a new file
+     * ({@code name_part2.xlsx}, ...). The size limit applies to the estimated uncompressed sheet XML.
+     * Configured with {@code pdfconvert.xlsx.maxRowsPerSheet}, {@code pdfconvert.xlsx.maxSheetsPerWorkbook}
+     * and {@code pdfconvert.xlsx.maxBytesPerWorkbook}, or {@link #setSplitPolicy}.
+     */
+    public record SplitPolicy(int maxRowsPerSheet, int maxSheetsPerWorkbook, long maxBytesPerWorkbook) {
+        public static final SplitPolicy DEFAULT =
+                new SplitPolicy(MAX_DATA_ROWS_PER_SHEET, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+        public SplitPolicy {
+            if (maxRowsPerSheet < 1 || maxRowsPerSheet > MAX_DATA_ROWS_PER_SHEET) {
+                throw new IllegalArgumentException("maxRowsPerSheet must be between 1 and " + MAX_DATA_ROWS_PER_SHEET);
+            }
+            if (maxSheetsPerWorkbook < 1 || maxBytesPerWorkbook < 1) {
+                throw new IllegalArgumentException("Workbook limits must be positive");
+            }
+        }
+
+        static SplitPolicy fromSystemProperties() {
+            try {
+                return new SplitPolicy(
+                        Integer.getInteger("pdfconvert.xlsx.maxRowsPerSheet", DEFAULT.maxRowsPerSheet()),
+                        Integer.getInteger("pdfconvert.xlsx.maxSheetsPerWorkbook", DEFAULT.maxSheetsPerWorkbook()),
+                        Long.getLong("pdfconvert.xlsx.maxBytesPerWorkbook", DEFAULT.maxBytesPerWorkbook()));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid pdfconvert.xlsx split settings, using the defaults: {}", e.getMessage());
+                return DEFAULT;
+            }
+        }
+    }
+
+    private record SheetPart(String sheetName, List<DataEntry> entries) { }
+
+    private record WorkbookPart(File file, List<SheetPart> sheets) { }
+
+    private SplitPolicy splitPolicy = SplitPolicy.fromSystemProperties();
+    private int compressionLevel = Integer.getInteger("pdfconvert.xlsx.compressionLevel", DEFAULT_COMPRESSION_LEVEL);
+
+    public void setSplitPolicy(SplitPolicy splitPolicy) {
+        this.splitPolicy = splitPolicy;
+    }
+
+    /**
+     * Deflate level of the workbooks written by {@code createExcelFile}, 0 (store only, for
+     * intermediate files) to 9. Default {@value #DEFAULT_COMPRESSION_LEVEL}, the level POI uses.
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("compressionLevel must be between 0 and 9");
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
     public void convertTxtToExcel(File txtFile) throws Exception {
         if (!txtFile.exists() || !txtFile.getName().endsWith(".txt")) {
             throw new IllegalArgumentException("Invalid text file");
@@ -28,121 +105,457 @@ public class ExcelService {
         List<DataEntry> dataList = readDataFromTxt(txtFile);
         String excelFilePath = txtFile.getParent() + File.separator +
                 txtFile.getName().replace(".txt", ".xlsx");
+        writeExcelFile(dataList, excelFilePath);
+    }
+
+    /**
+     * Full rebuild of a folder workbook from records already in memory, without reading the TXT.
+     */
+    public void writeExcelFile(List<DataEntry> dataList, String excelFilePath) throws IOException {
         createExcelFile(dataList, excelFilePath);
+
+        // A full rebuild invalidates any manifest left by an earlier incremental run
+        Files.deleteIfExists(manifestFile(excelFilePath).toPath());
     }
 
-    private record DataEntry(PDFData data, String fileName) { }
+    /**
+     * Incremental variant of {@link #convertTxtToExcel}: only the TXT records written after the
+     * offset kept in the workbook's manifest are read, and they are appended after the existing
+     * rows without loading the workbook (see {@link StreamingXlsxWriter#append}); column widths
+     * are widened from the new rows only. Falls back to a full rebuild when there is no workbook
+     * or manifest yet, when the output was split into several files or not written by this
+     * application, or when the new rows would pass the {@link SplitPolicy} limits.
+     */
+    public void appendTxtToExcel(File txtFile) throws Exception {
+        if (!txtFile.exists() || !txtFile.getName().endsWith(".txt")) {
+            throw new IllegalArgumentException("Invalid text file");
+        }
+        String excelFilePath = txtFile.getParent() + File.separator +
+                txtFile.getName().replace(".txt", ".xlsx");
+        File excelFile = new File(excelFilePath);
+        File manifestFile = manifestFile(excelFilePath);
+        // Records written after this call are picked up by the next one
+        long txtEnd = txtFile.length();
+        long txtOffset = readManifest(manifestFile);
 
-    private List<DataEntry> readDataFromTxt(File txtFile) throws Exception {
-        List<DataEntry> dataList = new ArrayList<>();
-        PDFData currentData = null;
-        String currentFileName = null;
+        StreamingXlsxWriter.Layout layout = null;
+        if (excelFile.exists() && !partFile(excelFilePath, 2).exists()
+                && txtOffset >= 0 && txtOffset <= txtEnd && TxtArchiveReader.isRecordStart(txtFile, txtOffset)) {
+            try {
+                layout = StreamingXlsxWriter.layout(excelFile);
+            } catch (IOException e) {
+                logger.warn("Cannot read workbook for appending, rebuilding: {}", excelFilePath, e);
+            }
+        }
+        if (layout == null || !appendToExcelFile(txtFile, txtOffset, txtEnd, excelFile, layout)) {
+            createExcelFile(TxtArchiveReader.read(txtFile, 0, txtEnd), excelFilePath);
+        }
+        writeManifest(manifestFile, txtEnd);
+    }
 
-        try(BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(txtFile), StandardCharsets.UTF_8)
-        )){
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if(line.startsWith("File: ")) {
-                    if(currentData != null ){
-                        dataList.add( new DataEntry(currentData, currentFileName));
-                    }
-                    currentData = new PDFData();
-                    currentFileName = line.substring(6).trim();
-                    continue;
+    /**
+     * @return {@code false} when the new rows need a full rebuild instead: they would pass a
+     * split limit, or start a new sheet in a workbook without a part index to extend
+     */
+    private boolean appendToExcelFile(File txtFile, long txtOffset, long txtEnd, File excelFile,
+                                      StreamingXlsxWriter.Layout layout) throws IOException {
+        List<DataEntry> newEntries = TxtArchiveReader.read(txtFile, txtOffset, txtEnd);
+        if (newEntries.isEmpty()) {
+            logger.info("No new records to append: {}", excelFile.getPath());
+            return true;
+        }
+
+        int maxRows = splitPolicy.maxRowsPerSheet();
+        int existingSheets = layout.sheetNames().size();
+        int tailSize = Math.min(newEntries.size(), Math.max(0, maxRows - layout.lastSheetRows()));
+        List<DataEntry> tail = newEntries.subList(0, tailSize);
+        List<StreamingXlsxWriter.Sheet> newSheets = new ArrayList<>();
+        for (int start = tailSize; start < newEntries.size(); start += maxRows) {
+            List<DataEntry> rows = newEntries.subList(start, Math.min(newEntries.size(), start + maxRows));
+            String name = DATA_SHEET_NAME + " (" + (existingSheets + newSheets.size() + 1) + ")";
+            newSheets.add(new StreamingXlsxWriter.Sheet(name, rows, sheetWidths(rows)));
+        }
+
+        long newBytes = 0;
+        for (DataEntry entry : newEntries) {
+            newBytes += estimateRowBytes(entry);
+        }
+        File indexFile = indexFile(excelFile.getPath());
+        if (existingSheets + newSheets.size() > splitPolicy.maxSheetsPerWorkbook()
+                || layout.sheetXmlBytes() + newBytes > splitPolicy.maxBytesPerWorkbook()
+                || (!newSheets.isEmpty() && !indexFile.exists())) {
+            logger.info("Appending {} records needs a new split, rebuilding: {}", newEntries.size(), excelFile.getPath());
+            return false;
+        }
+
+        File tempFile = new File(excelFile.getPath() + ".tmp");
+        try {
+            new StreamingXlsxWriter(compressionLevel).append(excelFile, tempFile, headers(), layout, tail,
+                    sheetWidths(tail), newSheets);
+            try {
+                Files.move(tempFile.toPath(), excelFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), excelFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+
+        if (indexFile.exists()) {
+            String lastSheetName = layout.sheetNames().get(existingSheets - 1);
+            List<SheetPart> sheets = new ArrayList<>();
+            sheets.add(new SheetPart(lastSheetName, tail));
+            newSheets.forEach(sheet -> sheets.add(new SheetPart(sheet.name(), sheet.segments().get(0).entries())));
+            try (BufferedWriter writer = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(indexFile, true), StandardCharsets.UTF_8))) {
+                int firstRow = layout.lastSheetRows() + 2;
+                for (SheetPart sheetPart : sheets) {
+                    writeIndexLines(writer, excelFile.getName(), sheetPart, firstRow);
+                    firstRow = 2;
                 }
-                if(currentData != null){
-                    processDataLine(line,currentData);
+            }
+        }
+        logger.info("Appended {} records to: {}", newEntries.size(), excelFile.getPath());
+        return true;
+    }
+
+    private static File manifestFile(String excelFilePath) {
+        return new File(excelFilePath + MANIFEST_EXTENSION);
+    }
+
+    /**
+     * @return the TXT offset up to which the workbook holds the records, or -1 when unknown
+     */
+    private static long readManifest(File manifestFile) {
+        if (!manifestFile.exists()) {
+            return -1;
+        }
+        try {
+            List<String> lines = Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8);
+            if (!lines.isEmpty() && lines.get(0).startsWith(MANIFEST_OFFSET_KEY)) {
+                return Long.parseLong(lines.get(0).substring(MANIFEST_OFFSET_KEY.length()).trim());
+            }
+            // Manifests of older versions list file names instead; rebuilt once
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Cannot read workbook manifest: {}", manifestFile.getPath(), e);
+        }
+        return -1;
+    }
+
+    private void writeManifest(File manifestFile, long txtOffset) throws IOException {
+        Files.writeString(manifestFile.toPath(), MANIFEST_OFFSET_KEY + txtOffset + "\n", StandardCharsets.UTF_8);
+    }
+
+    public List<DataEntry> readDataFromTxt(File txtFile) throws Exception {
+        return TxtArchiveReader.read(txtFile);
+    }
+
+    private void createExcelFile(List<DataEntry> dataList, String filePath) throws IOException {
+        List<WorkbookPart> parts = planWorkbookParts(dataList, filePath);
+        writeWorkbookParts(parts);
+
+        File indexFile = indexFile(filePath);
+        if (parts.size() > 1 || parts.get(0).sheets().size() > 1) {
+            writePartIndex(parts, indexFile);
+            logger.info("Split {} rows into {} workbook(s): {}", dataList.size(), parts.size(), filePath);
+        } else {
+            Files.deleteIfExists(indexFile.toPath());
+        }
+        // Parts left by an earlier run that split into more files
+        for (int n = parts.size() + 1; partFile(filePath, n).exists(); n++) {
+            Files.delete(partFile(filePath, n).toPath());
+        }
+    }
+
+    /**
+     * Assigns entries to sheets and workbook files. A new sheet starts when the current one
+     * reaches {@link SplitPolicy#maxRowsPerSheet()}; a new file starts when the current one
+     * reaches {@link SplitPolicy#maxSheetsPerWorkbook()} or its estimated sheet XML size would
+     * pass {@link SplitPolicy#maxBytesPerWorkbook()}.
+     */
+    private List<WorkbookPart> planWorkbookParts(List<DataEntry> dataList, String filePath) {
+        List<WorkbookPart> parts = new ArrayList<>();
+        List<SheetPart> sheets = new ArrayList<>();
+        int sheetStart = 0;
+        long workbookBytes = 0;
+
+        for (int i = 0; i < dataList.size(); i++) {
+            long rowBytes = estimateRowBytes(dataList.get(i));
+            int sheetRows = i - sheetStart;
+            boolean workbookFull = workbookBytes + rowBytes > splitPolicy.maxBytesPerWorkbook() && workbookBytes > 0;
+            boolean sheetFull = sheetRows == splitPolicy.maxRowsPerSheet();
+
+            if (sheetFull || workbookFull) {
+                sheets.add(new SheetPart(sheetName(parts, sheets), dataList.subList(sheetStart, i)));
+                sheetStart = i;
+                if (workbookFull || sheets.size() == splitPolicy.maxSheetsPerWorkbook()) {
+                    parts.add(new WorkbookPart(partFile(filePath, parts.size() + 1), sheets));
+                    sheets = new ArrayList<>();
+                    workbookBytes = 0;
                 }
             }
-            if(currentData != null){
-                dataList.add(new DataEntry(currentData,currentFileName));
+            workbookBytes += rowBytes;
+        }
+        sheets.add(new SheetPart(sheetName(parts, sheets), dataList.subList(sheetStart, dataList.size())));
+        parts.add(new WorkbookPart(partFile(filePath, parts.size() + 1), sheets));
+        return parts;
+    }
+
+    private String sheetName(List<WorkbookPart> parts, List<SheetPart> currentSheets) {
+        int sheetNumber = currentSheets.size() + 1;
+        for (WorkbookPart part : parts) {
+            sheetNumber += part.sheets().size();
+        }
+        return sheetNumber == 1 ? DATA_SHEET_NAME : DATA_SHEET_NAME + " (" + sheetNumber + ")";
+    }
+
+    private static File partFile(String filePath, int partNumber) {
+        if (partNumber == 1) {
+            return new File(filePath);
+        }
+        return new File(filePath.replaceFirst("\\.xlsx$", "") + "_part" + partNumber + ".xlsx");
+    }
+
+    private static long estimateRowBytes(DataEntry entry) {
+        long bytes = ROW_XML_OVERHEAD;
+        for (int i = 0; i < HEADERS.length; i++) {
+            String value = columnValue(entry.data(), entry.fileName(), i);
+            bytes += CELL_XML_OVERHEAD + (value != null ? value.length() * 2L : 0);
+        }
+        return bytes;
+    }
+
+    private void writeWorkbookParts(List<WorkbookPart> parts) throws IOException {
+        if (parts.size() == 1) {
+            writeWorkbookPart(parts.get(0));
+            return;
+        }
+
+        AtomicInteger nextPart = new AtomicInteger();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(parts.size());
+        // The caller and the helpers pull parts from the same counter, so the write finishes even
+        // if the shared pool is busy with the callers themselves (folder tasks, HTTP requests)
+        Runnable worker = () -> {
+            int part;
+            while ((part = nextPart.getAndIncrement()) < parts.size()) {
+                try {
+                    if (failure.get() == null) {
+                        writeWorkbookPart(parts.get(part));
+                    }
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, new IOException("Error writing Excel part", e));
+                } finally {
+                    done.countDown();
+                }
             }
+        };
+        int helpers = Math.min(parts.size(), Runtime.getRuntime().availableProcessors()) - 1;
+        for (int i = 0; i < helpers; i++) {
+            ThreadPoolUtil.getExecutorService().execute(worker);
+        }
+        worker.run();
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Excel writing interrupted");
         }
-        return dataList;
-    }
-
-    private void processDataLine(String line, PDFData data) {
-        if (line.startsWith("Tên kinh doanh: ")) {
-            data.setBusinessName(line.substring("Tên kinh doanh: ".length()));
-        } else if (line.startsWith("Địa chỉ: ")) {
-            data.setAddress(line.substring("Địa chỉ: ".length()));
-        } else if (line.startsWith("Số serial: ")) {
-            data.setSerialNumber(line.substring("Số serial: ".length()));
-        } else if (line.startsWith("Loại máy: ")) {
-            data.setPosDevice(line.substring("Loại máy: ".length()));
-        } else if (line.startsWith("Mã máy: ")) {
-            data.setGroupName(line.substring("Mã máy: ".length()));
-        } else if (line.startsWith("Ghi chú: ")) {
-            data.setNotes(line.substring("Ghi chú: ".length()));
-        } else if (line.startsWith("MID: ")) {
-            data.setMerchantId(line.substring("MID: ".length()));
-        } else if (line.startsWith("TID: ")) {
-            data.setTerminalId(line.substring("TID: ".length()));
-        } else if (line.startsWith("TID 00: ")) {
-            data.setTerminalId00(line.substring("TID 00: ".length()));
-        }else if (line.startsWith("TID V-TOP: ")) {
-            data.setTerminalVtopId(line.substring("TID V-TOP: ".length()));
-        } else if (line.startsWith("POS_V-TOP: ")) {
-            data.setPosVtop(line.substring("POS V-TOP: ".length()));
+        if (failure.get() != null) {
+            throw failure.get();
         }
     }
 
-    private void createExcelFile(List<DataEntry> dataList, String filePath) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("POS Data");
-
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            createHeaders(headerRow);
-
-            // Create data rows
-            int rowNum = 1;
-            for (DataEntry entry : dataList) {
-                Row row = sheet.createRow(rowNum++);
-                fillDataRow(row, entry.data(), entry.fileName());
+    private void writeWorkbookPart(WorkbookPart part) throws IOException {
+        List<StreamingXlsxWriter.Sheet> sheets = new ArrayList<>();
+        for (SheetPart sheetPart : part.sheets()) {
+            sheets.add(new StreamingXlsxWriter.Sheet(sheetPart.sheetName(), sheetPart.entries(),
+                    sheetWidths(sheetPart.entries())));
+        }
+        new StreamingXlsxWriter(compressionLevel).write(part.file(), headers(), sheets);
+    }
+
+    private static File indexFile(String filePath) {
+        return new File(filePath.replaceFirst("\\.xlsx$", "") + INDEX_EXTENSION);
+    }
+
+    private void writePartIndex(List<WorkbookPart> parts, File indexFile) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(indexFile), StandardCharsets.UTF_8))) {
+            writer.write("Tên File\tFile Excel\tSheet\tDòng\n");
+            for (WorkbookPart part : parts) {
+                for (SheetPart sheetPart : part.sheets()) {
+                    writeIndexLines(writer, part.file().getName(), sheetPart, 2); // 1-based, after the header row
+                }
             }
+        }
+    }
 
-            // Auto-size columns
+    private static void writeIndexLines(Writer writer, String workbookName, SheetPart sheetPart, int firstRow)
+            throws IOException {
+        int rowNum = firstRow;
+        for (DataEntry entry : sheetPart.entries()) {
+            writer.write(entry.fileName() + "\t" + workbookName + "\t" + sheetPart.sheetName() + "\t" + rowNum++ + "\n");
+        }
+    }
+
+    public static List<String> headers() {
+        return List.of(HEADERS);
+    }
+
+    /**
+     * Value of a workbook column, in {@link #headers()} order; shared with the CSV output.
+     */
+    public static String columnValue(PDFData data, String fileName, int column) {
+        return switch (column) {
+            case 0 -> fileName;
+            case 1 -> data.getBusinessName();
+            case 2 -> data.getAddress();
+            case 3 -> data.getSerialNumber();
+            case 4 -> data.getPosDevice();
+            case 5 -> data.getGroupName();
+            case 6 -> data.getNotes();
+            case 7 -> data.getMerchantId();
+            case 8 -> data.getTerminalId();
+            case 9 -> data.getTerminalId00();
+            case 10 -> data.getTerminalVtopId();
+            case 11 -> data.getPosVtop();
+            default -> throw new IllegalArgumentException("Unknown column: " + column);
+        };
+    }
+
+    /**
+     * Widest value per column in characters, header included. Used instead of
+     * {@code autoSizeColumn}, which needs every row in memory and a font metrics pass.
+     */
+    public static int[] measureColumns(List<DataEntry> dataList) {
+        int[] widths = new int[HEADERS.length];
+        for (int i = 0; i < HEADERS.length; i++) {
+            widths[i] = HEADERS[i].length();
+        }
+        for (DataEntry entry : dataList) {
             for (int i = 0; i < HEADERS.length; i++) {
-                sheet.autoSizeColumn(i);
+                String value = columnValue(entry.data(), entry.fileName(), i);
+                if (value != null && value.length() > widths[i]) {
+                    widths[i] = value.length();
+                }
             }
+        }
+        return widths;
+    }
 
-            // Write to file
-            try (FileOutputStream outputStream = new FileOutputStream(filePath)) {
-                workbook.write(outputStream);
-            }
+    /**
+     * Column widths of a sheet holding {@code entries}, in characters as the sheet XML has them.
+     */
+    private static int[] sheetWidths(List<DataEntry> entries) {
+        int[] widths = measureColumns(entries);
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = toColumnWidth(widths[i]) / 256;
         }
+        return widths;
     }
 
-    private void createHeaders(Row headerRow) {
-        CellStyle headerStyle = headerRow.getSheet().getWorkbook().createCellStyle();
-        Font headerFont = headerRow.getSheet().getWorkbook().createFont();
-        headerFont.setBold(true);
-        headerStyle.setFont(headerFont);
-        headerStyle.setAlignment(HorizontalAlignment.CENTER);
+    private static int toColumnWidth(int characters) {
+        return Math.min(255, characters + 2) * 256;
+    }
+
+    /**
+     * Serializes and compresses a folder's own sheets for the consolidated workbook, split at
+     * {@link SplitPolicy#maxRowsPerSheet()}, on the calling thread: each folder task does this as
+     * soon as its folder finishes, so only the combined sheet is left for the final write. The
+     * compressed sheets are spilled to temp files that the caller deletes.
+     */
+    List<StreamingXlsxWriter.CompressedSheet> compressFolderSheets(String folderName, List<DataEntry> entries,
+                                                                   int[] columnWidths) throws IOException {
+        StreamingXlsxWriter writer = new StreamingXlsxWriter(compressionLevel);
+        int[] widths = new int[HEADERS.length];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = toColumnWidth(columnWidths[i]) / 256;
+        }
+        List<StreamingXlsxWriter.CompressedSheet> sheets = new ArrayList<>();
+        try {
+            int sheetStart = 0;
+            do {
+                int sheetEnd = Math.min(entries.size(), sheetStart + splitPolicy.maxRowsPerSheet());
+                sheets.add(writer.compress(headers(),
+                        new StreamingXlsxWriter.Sheet(folderName, entries.subList(sheetStart, sheetEnd), widths)));
+                sheetStart = sheetEnd;
+            } while (sheetStart < entries.size());
+        } catch (IOException | RuntimeException e) {
+            sheets.forEach(StreamingXlsxWriter.CompressedSheet::delete);
+            throw e;
+        }
+        return sheets;
+    }
 
+    /**
+     * Writes the combined sheet(s), a folder column followed by the usual columns, then the
+     * folder sheets prepared by {@link #compressFolderSheets}.
+     */
+    void createConsolidatedExcelFile(List<ConsolidatedWorkbookBuilder.FolderSheet> folderSheets,
+                                     File outputFile) throws IOException {
+        Set<String> usedNames = new HashSet<>();
+        int folderWidth = FOLDER_HEADER.length();
+        int[] maxWidths = new int[HEADERS.length];
+        for (ConsolidatedWorkbookBuilder.FolderSheet folderSheet : folderSheets) {
+            folderWidth = Math.max(folderWidth, folderSheet.folderName().length());
+            for (int i = 0; i < HEADERS.length; i++) {
+                maxWidths[i] = Math.max(maxWidths[i], folderSheet.columnWidths()[i]);
+            }
+        }
+        int[] combinedWidths = new int[HEADERS.length + 1];
+        combinedWidths[0] = toColumnWidth(folderWidth) / 256;
         for (int i = 0; i < HEADERS.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(HEADERS[i]);
-            cell.setCellStyle(headerStyle);
+            combinedWidths[i + 1] = toColumnWidth(maxWidths[i]) / 256;
         }
+
+        List<StreamingXlsxWriter.Sheet> combined = new ArrayList<>();
+        List<StreamingXlsxWriter.Segment> segments = new ArrayList<>();
+        int rows = 0;
+        for (ConsolidatedWorkbookBuilder.FolderSheet folderSheet : folderSheets) {
+            List<DataEntry> entries = folderSheet.entries();
+            int start = 0;
+            while (start < entries.size()) {
+                if (rows == splitPolicy.maxRowsPerSheet()) {
+                    combined.add(new StreamingXlsxWriter.Sheet(uniqueSheetName(COMBINED_SHEET_NAME, usedNames),
+                            FOLDER_HEADER, segments, combinedWidths));
+                    segments = new ArrayList<>();
+                    rows = 0;
+                }
+                int end = Math.min(entries.size(), start + splitPolicy.maxRowsPerSheet() - rows);
+                segments.add(new StreamingXlsxWriter.Segment(folderSheet.folderName(), entries.subList(start, end)));
+                rows += end - start;
+                start = end;
+            }
+        }
+        if (!segments.isEmpty()) {
+            combined.add(new StreamingXlsxWriter.Sheet(uniqueSheetName(COMBINED_SHEET_NAME, usedNames),
+                    FOLDER_HEADER, segments, combinedWidths));
+        }
+
+        List<StreamingXlsxWriter.CompressedSheet> folderParts = new ArrayList<>();
+        for (ConsolidatedWorkbookBuilder.FolderSheet folderSheet : folderSheets) {
+            for (StreamingXlsxWriter.CompressedSheet sheet : folderSheet.sheets()) {
+                folderParts.add(sheet.withName(uniqueSheetName(folderSheet.folderName(), usedNames)));
+            }
+        }
+
+        new StreamingXlsxWriter(compressionLevel).write(outputFile, headers(), combined, folderParts);
+        logger.info("Created consolidated workbook with {} folders: {}", folderSheets.size(), outputFile.getPath());
     }
 
-    private void fillDataRow(Row row, PDFData data, String fileName) {
-        int columnIndex = 0;
-        row.createCell(columnIndex++).setCellValue(fileName);
-        row.createCell(columnIndex++).setCellValue(data.getBusinessName());
-        row.createCell(columnIndex++).setCellValue(data.getAddress());
-        row.createCell(columnIndex++).setCellValue(data.getSerialNumber());
-        row.createCell(columnIndex++).setCellValue(data.getPosDevice());
-        row.createCell(columnIndex++).setCellValue(data.getGroupName());
-        row.createCell(columnIndex++).setCellValue(data.getNotes());
-        row.createCell(columnIndex++).setCellValue(data.getMerchantId());
-        row.createCell(columnIndex++).setCellValue(data.getTerminalId());
-        row.createCell(columnIndex++).setCellValue(data.getTerminalId00());
-        row.createCell(columnIndex++).setCellValue(data.getTerminalVtopId());
-        row.createCell(columnIndex).setCellValue(data.getPosVtop());
+    private static String uniqueSheetName(String name, Set<String> usedNames) {
+        String base = WorkbookUtil.createSafeSheetName(name);
+        String candidate = base;
+        for (int suffix = 2; !usedNames.add(candidate.toLowerCase()); suffix++) {
+            String tag = " (" + suffix + ")";
+            candidate = base.substring(0, Math.min(base.length(), MAX_SHEET_NAME_LENGTH - tag.length())) + tag;
+        }
+        return candidate;
     }
 
-}
\ No newline at end of file
+}
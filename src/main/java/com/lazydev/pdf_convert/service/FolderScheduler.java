@@ -0,0 +1,82 @@
+package com.lazydev.pdf_convert.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Decides the order in which selected folders are submitted to the worker pool (which starts
+ * them first come, first served).
+ * <ol>
+ *     <li>Pinned folders, in selection order.</li>
+ *     <li>Folders too big to start late: one whose estimated cost exceeds the average load per
+ *     worker would stretch the whole run if it started behind the small ones, so up to
+ *     {@code workers - 1} of them start right away, largest first.</li>
+ *     <li>Everything else, smallest first, on the remaining worker(s), so small folders finish
+ *     early instead of queueing behind big ones.</li>
+ * </ol>
+ * Cost is estimated from the PDF count and total PDF bytes, without opening any file.
+ */
+public class FolderScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(FolderScheduler.class);
+
+    // Fixed per-file cost (load, text stripping, writing a record) expressed in bytes of PDF
+    private static final long PER_FILE_COST_BYTES = 256L << 10;
+
+    public record FolderJob(File folder, int fileCount, long bytes, boolean pinned) {
+        public long cost() {
+            return fileCount * PER_FILE_COST_BYTES + bytes;
+        }
+    }
+
+    private FolderScheduler() {
+    }
+
+    public static List<File> order(File[] folders, Collection<File> pinned, int workers) {
+        List<FolderJob> pinnedJobs = new ArrayList<>();
+        List<FolderJob> others = new ArrayList<>();
+        long totalCost = 0;
+        for (File folder : folders) {
+            FolderJob job = estimate(folder, pinned.contains(folder));
+            (job.pinned() ? pinnedJobs : others).add(job);
+            totalCost += job.cost();
+        }
+
+        others.sort(Comparator.comparingLong(FolderJob::cost).reversed());
+        int longSlots = Math.max(0, workers - pinnedJobs.size() - 1);
+        List<FolderJob> longJobs = new ArrayList<>();
+        for (FolderJob job : others) {
+            if (longJobs.size() == longSlots || job.cost() * workers <= totalCost) {
+                break;
+            }
+            longJobs.add(job);
+        }
+        others.removeAll(longJobs);
+        others.sort(Comparator.comparingLong(FolderJob::cost));
+
+        List<FolderJob> jobs = new ArrayList<>(folders.length);
+        jobs.addAll(pinnedJobs);
+        jobs.addAll(longJobs);
+        jobs.addAll(others);
+        logger.info("Folder order ({} pinned, {} started early): {}", pinnedJobs.size(), longJobs.size(),
+                jobs.stream().map(job -> job.folder().getName() + "[" + job.fileCount() + " files, "
+                        + (job.bytes() >> 10) + " KB]").toList());
+        return jobs.stream().map(FolderJob::folder).toList();
+    }
+
+    static FolderJob estimate(File folder, boolean pinned) {
+        File[] pdfFiles = Optional.ofNullable(folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".pdf")))
+                .orElse(new File[0]);
+        long bytes = 0;
+        for (File file : pdfFiles) {
+            bytes += file.length();
+        }
+        return new FolderJob(folder, pdfFiles.length, bytes, pinned);
+    }
+}
@@ -0,0 +1,290 @@
+package com.lazydev.pdf_convert.service;
+
+import com.lazydev.pdf_convert.exception.PDFProcessingException.FailureCategory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Classifies PDFs from their raw bytes before {@code PDDocument.load} pays for a full parse.
+ * <ul>
+ *     <li>DAMAGED: no {@code %PDF-} header, so not a PDF at all</li>
+ *     <li>ENCRYPTED: the trailer (or xref stream dictionary) has an {@code /Encrypt} entry</li>
+ *     <li>NO_TEXT_LAYER: no {@code /Font} anywhere in the file and no object streams that could
+ *     hide one, which is what scanned, image-only contracts look like</li>
+ * </ul>
+ * The header and trailer checks read a few kilobytes; the font check only runs on files up to
+ * {@code FONT_SCAN_LIMIT_BYTES}, so the cost per file is bounded. Larger files are passed on and
+ * an image-only one is caught by the real parse.
+ * A missing or truncated {@code %%EOF}, junk after it or a {@code startxref} offset that does not
+ * land on an xref table is not a rejection: PDFBox rebuilds the cross-reference table of such
+ * files, so they go to the normal lenient parse with the anomaly noted in the scan reason.
+ * Encrypted files are not rejected either: most of ours only carry an owner password and open
+ * with the empty user password, so they are parsed last and rejected by PDFBox if that fails.
+ */
+public class PDFPreScanner {
+    private static final Logger logger = LoggerFactory.getLogger(PDFPreScanner.class);
+
+    private static final int HEAD_BYTES = 1024;
+    private static final int TAIL_BYTES = 2048;
+    private static final int XREF_DICTIONARY_BYTES = 4096;
+    private static final int SCAN_BUFFER_BYTES = 64 << 10;
+    private static final int FONT_SCAN_LIMIT_BYTES = 512 << 10;
+
+    private static final byte[] HEADER = ascii("%PDF-");
+    private static final byte[] EOF = ascii("%%EOF");
+    private static final byte[] STARTXREF = ascii("startxref");
+    private static final byte[] XREF = ascii("xref");
+    private static final byte[] OBJ = ascii("obj");
+    private static final byte[] ENCRYPT = ascii("/Encrypt");
+    private static final byte[] FONT = ascii("/Font");
+    private static final byte[] OBJECT_STREAM = ascii("/ObjStm");
+
+    public enum Verdict {
+        OK,
+        ENCRYPTED,
+        DAMAGED,
+        NO_TEXT_LAYER
+    }
+
+    public record ScanResult(File file, long size, Verdict verdict, String reason, long durationNanos) {
+        public FailureCategory category() {
+            return switch (verdict) {
+                case ENCRYPTED -> FailureCategory.ENCRYPTED;
+                case DAMAGED -> FailureCategory.DAMAGED;
+                case NO_TEXT_LAYER -> FailureCategory.NO_TEXT_LAYER;
+                case OK -> null;
+            };
+        }
+
+        /**
+         * @return whether the file goes on to the full parse
+         */
+        public boolean parseable() {
+            return verdict == Verdict.OK || verdict == Verdict.ENCRYPTED;
+        }
+    }
+
+    /**
+     * @param accepted files to parse: clean files in name order, then encrypted ones in name order
+     * @param rejected files that are not worth a full parse
+     */
+    public record Triage(List<File> accepted, List<ScanResult> rejected) { }
+
+    public Triage triage(File[] pdfFiles) {
+        File[] sorted = pdfFiles.clone();
+        Arrays.sort(sorted);
+        List<File> clean = new ArrayList<>();
+        List<File> encrypted = new ArrayList<>();
+        List<ScanResult> rejected = new ArrayList<>();
+
+        for (File file : sorted) {
+            ScanResult result = scan(file);
+            if (!result.parseable()) {
+                rejected.add(result);
+            } else if (result.verdict() == Verdict.ENCRYPTED) {
+                encrypted.add(file);
+            } else {
+                clean.add(file);
+            }
+        }
+        clean.addAll(encrypted);
+        return new Triage(clean, rejected);
+    }
+
+    public ScanResult scan(File file) {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return scan(file, channel, start);
+        } catch (IOException e) {
+            logger.error("Error pre-scanning file: {}", file.getName(), e);
+            return new ScanResult(file, file.length(), Verdict.DAMAGED, "Không đọc được file: " + e.getMessage(),
+                    System.nanoTime() - start);
+        }
+    }
+
+    private ScanResult scan(File file, FileChannel channel, long start) throws IOException {
+        long size = channel.size();
+        byte[] head = read(channel, 0, (int) Math.min(HEAD_BYTES, size));
+        int headerOffset = indexOf(head, head.length, HEADER, 0);
+        if (headerOffset < 0) {
+            return new ScanResult(file, size, Verdict.DAMAGED, "Không phải file PDF", System.nanoTime() - start);
+        }
+
+        long tailStart = Math.max(0, size - TAIL_BYTES);
+        byte[] tail = read(channel, tailStart, (int) (size - tailStart));
+        byte[] xref = new byte[0];
+        String anomaly = null;
+        int eof = lastIndexOf(tail, EOF, tail.length);
+        int startxref = lastIndexOf(tail, STARTXREF, eof < 0 ? tail.length : eof);
+        if (startxref < 0) {
+            anomaly = eof < 0 ? "thiếu startxref/%%EOF" : "thiếu startxref";
+        } else {
+            // Offsets are relative to the header, which may follow some leading junk
+            long xrefOffset = parseOffset(tail, startxref + STARTXREF.length, eof < 0 ? tail.length : eof);
+            long xrefPosition = xrefOffset < 0 ? -1 : headerOffset + xrefOffset;
+            if (xrefPosition >= 0 && xrefPosition < size) {
+                xref = read(channel, xrefPosition, (int) Math.min(XREF_DICTIONARY_BYTES, size - xrefPosition));
+            }
+            if (!isXrefStart(xref)) {
+                anomaly = "vị trí bảng xref không hợp lệ";
+                xref = new byte[0];
+            } else if (eof < 0) {
+                anomaly = "thiếu %%EOF";
+            }
+        }
+        if (anomaly != null) {
+            logger.debug("{}: {}, left to the lenient parser", file.getName(), anomaly);
+        }
+
+        if (indexOf(tail, tail.length, ENCRYPT, 0) >= 0 || indexOf(xref, xref.length, ENCRYPT, 0) >= 0) {
+            return new ScanResult(file, size, Verdict.ENCRYPTED, withAnomaly("File PDF được mã hóa", anomaly),
+                    System.nanoTime() - start);
+        }
+
+        if (!mayHaveTextLayer(channel, size)) {
+            return new ScanResult(file, size, Verdict.NO_TEXT_LAYER, "File PDF không có lớp văn bản (chỉ có hình ảnh)",
+                    System.nanoTime() - start);
+        }
+        return new ScanResult(file, size, Verdict.OK, anomaly == null ? null : "File PDF cần sửa lỗi: " + anomaly,
+                System.nanoTime() - start);
+    }
+
+    private static String withAnomaly(String reason, String anomaly) {
+        return anomaly == null ? reason : reason + " (" + anomaly + ")";
+    }
+
+    /**
+     * @return whether the file has a font or object streams that may hold one; always true for
+     * files too large to scan
+     */
+    private static boolean mayHaveTextLayer(FileChannel channel, long size) throws IOException {
+        if (size > FONT_SCAN_LIMIT_BYTES) {
+            return true;
+        }
+        int overlap = Math.max(FONT.length, OBJECT_STREAM.length) - 1;
+        byte[] buffer = new byte[SCAN_BUFFER_BYTES + overlap];
+        ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+        boolean objectStreams = false;
+        int carried = 0;
+        long position = 0;
+
+        while (position < size) {
+            wrapped.limit(buffer.length).position(carried);
+            int read = channel.read(wrapped, position);
+            if (read <= 0) {
+                break;
+            }
+            position += read;
+            int length = carried + read;
+            if (indexOf(buffer, length, FONT, 0) >= 0) {
+                return true;
+            }
+            objectStreams |= indexOf(buffer, length, OBJECT_STREAM, 0) >= 0;
+
+            carried = Math.min(overlap, length);
+            System.arraycopy(buffer, length - carried, buffer, 0, carried);
+        }
+        return objectStreams;
+    }
+
+    private static boolean isXrefStart(byte[] bytes) {
+        int i = skipWhitespace(bytes, 0);
+        if (startsWith(bytes, i, XREF)) {
+            return true;
+        }
+        // Cross-reference stream: "<number> <generation> obj"
+        for (int part = 0; part < 2; part++) {
+            int digits = i;
+            while (i < bytes.length && Character.isDigit(bytes[i])) {
+                i++;
+            }
+            if (i == digits) {
+                return false;
+            }
+            i = skipWhitespace(bytes, i);
+        }
+        return startsWith(bytes, i, OBJ);
+    }
+
+    private static long parseOffset(byte[] bytes, int from, int to) {
+        int i = skipWhitespace(bytes, from);
+        long value = 0;
+        int start = i;
+        while (i < to && Character.isDigit(bytes[i]) && i - start < 18) {
+            value = value * 10 + (bytes[i] - '0');
+            i++;
+        }
+        return i == start ? -1 : value;
+    }
+
+    private static int skipWhitespace(byte[] bytes, int from) {
+        int i = from;
+        while (i < bytes.length && (bytes[i] == ' ' || bytes[i] == '\r' || bytes[i] == '\n'
+                || bytes[i] == '\t' || bytes[i] == '\f' || bytes[i] == 0)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, byte[] prefix) {
+        if (bytes.length - offset < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] bytes, int length, byte[] pattern, int from) {
+        outer:
+        for (int i = from; i <= length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] bytes, byte[] pattern, int before) {
+        outer:
+        for (int i = Math.min(before, bytes.length) - pattern.length; i >= 0; i--) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
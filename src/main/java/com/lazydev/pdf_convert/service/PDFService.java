@@ -1,16 +1,46 @@
 package com.lazydev.pdf_convert.service;
 
 import com.lazydev.pdf_convert.exception.PDFProcessingException;
+import com.lazydev.pdf_convert.exception.PDFProcessingException.FailureCategory;
+import com.lazydev.pdf_convert.model.DataEntry;
+import com.lazydev.pdf_convert.model.PDFData;
+import com.lazydev.pdf_convert.sink.CsvResultSink;
+import com.lazydev.pdf_convert.sink.ResultFanOut;
+import com.lazydev.pdf_convert.sink.ResultSink;
+import com.lazydev.pdf_convert.sink.TxtResultSink;
+import com.lazydev.pdf_convert.util.ConcurrencyGovernor;
+import com.lazydev.pdf_convert.util.EventJournal;
+import com.lazydev.pdf_convert.util.EventJournal.Outcome;
+import com.lazydev.pdf_convert.util.EventJournal.Stage;
+import com.lazydev.pdf_convert.util.FileWatchdog;
+import com.lazydev.pdf_convert.util.MappedRandomAccessRead;
 import com.lazydev.pdf_convert.util.RegexExtractor;
+import com.lazydev.pdf_convert.util.StartupMetrics;
+import org.apache.pdfbox.io.RandomAccessBuffer;
+import org.apache.pdfbox.io.RandomAccessBufferedFileInputStream;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.pdfparser.PDFParser;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,9 +48,88 @@ import org.slf4j.LoggerFactory;
 public class PDFService {
     private static final Logger logger = LoggerFactory.getLogger(PDFService.class);
     private static final String PDF_EXTENSION = ".pdf";
-    private static final String TXT_EXTENSION = ".txt";
+
+    static final String FAILURE_REPORT_SUFFIX = "_failures.tsv";
+    static final String FAILURE_REPORT_HEADER = "Tên File\tLoại lỗi\tChi tiết\n";
+    private static final Duration DEFAULT_FILE_TIMEOUT = Duration.ofMinutes(2);
+    private static final long DEFAULT_FILE_ALLOCATION_BUDGET = 2L << 30; // bytes allocated per file, not retained
+    private static final boolean MAPPED_INPUT =
+            Boolean.parseBoolean(System.getProperty("pdfconvert.input.mmap", "true"));
+
+    private record FailedFile(String fileName, FailureCategory category, String reason) { }
+
+    private record FileOutcome(File file, PDFData data, PDFProcessingException failure) { }
+
+    private static final AtomicInteger folderHelperCounter = new AtomicInteger();
+    // Own pool: helpers only wait on the watchdog, and must not hold up the shared pools
+    private static final ExecutorService folderHelpers = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r);
+        thread.setName("FolderHelper-" + folderHelperCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Receives every record written to a combined TXT, on the worker thread that wrote it.
+     */
+    @FunctionalInterface
+    public interface RecordListener {
+        void onRecord(String folder, String fileName, PDFData data);
+    }
+
+    private final FileWatchdog fileWatchdog = new FileWatchdog(DEFAULT_FILE_TIMEOUT, DEFAULT_FILE_ALLOCATION_BUDGET,
+            ConcurrencyGovernor.maxWorkers());
+    private final PDFPreScanner preScanner = new PDFPreScanner();
+    // Documents with at least this many pages are stripped in parallel page ranges
+    private final ParallelPageStripper pageStripper = new ParallelPageStripper(
+            Integer.getInteger("pdfconvert.parallelPages.threshold", ParallelPageStripper.DEFAULT_PAGE_THRESHOLD),
+            Runtime.getRuntime().availableProcessors());
+    private final EventJournal journal = EventJournal.get();
+    private final ConcurrencyGovernor governor = ConcurrencyGovernor.get();
+    private TerminalIndexService terminalIndex;
+    private volatile RecordListener recordListener;
+    private volatile List<ResultSink.Factory> extraSinks = List.of();
+
+    public void setFileTimeout(Duration timeout) {
+        fileWatchdog.setTimeBudget(timeout);
+    }
+
+    /**
+     * @param bytes bytes a file may allocate in total while it is parsed, see {@link FileWatchdog}
+     */
+    public void setFileAllocationBudget(long bytes) {
+        fileWatchdog.setAllocationBudgetBytes(bytes);
+    }
+
+    public void setTerminalIndex(TerminalIndexService terminalIndex) {
+        this.terminalIndex = terminalIndex;
+    }
+
+    public void setRecordListener(RecordListener recordListener) {
+        this.recordListener = recordListener;
+    }
+
+    /**
+     * Output formats written next to the combined TXT (which is always written) during the
+     * extraction pass, e.g. {@link CsvResultSink#factory()}.
+     */
+    public void setExtraSinks(List<ResultSink.Factory> extraSinks) {
+        this.extraSinks = List.copyOf(extraSinks);
+    }
 
     public String convertAllPDFs(File directory) throws PDFProcessingException {
+        return convertPDFs(directory, false);
+    }
+
+    /**
+     * Incremental variant of {@link #convertAllPDFs}: PDFs that already have a record in the
+     * folder's combined TXT are skipped and new records are appended to it.
+     */
+    public String convertNewPDFs(File directory) throws PDFProcessingException {
+        return convertPDFs(directory, true);
+    }
+
+    private String convertPDFs(File directory, boolean incremental) throws PDFProcessingException {
         validateDirectory(directory);
 
         File[] pdfFiles = Optional.ofNullable(directory.listFiles((dir, name) -> name.toLowerCase().endsWith(PDF_EXTENSION)))
@@ -31,21 +140,58 @@ public class PDFService {
             return "Không tìm thấy file PDF nào trong thư mục!";
         }
 
-        String combinedFileName = directory.getName() + TXT_EXTENSION;
+        String combinedFileName = directory.getName() + TxtResultSink.EXTENSION;
         File combinedFile = new File(directory, combinedFileName);
         StringBuilder overallStatus = new StringBuilder("Đang xử lý...\n");
 
-        try (FileWriter writer = new FileWriter(combinedFile, StandardCharsets.UTF_8)) {
-            processFiles(pdfFiles, writer, overallStatus);
+        boolean append = incremental && combinedFile.exists();
+        if (append) {
+            Set<String> processedNames = readProcessedFileNames(combinedFile);
+            pdfFiles = Arrays.stream(pdfFiles)
+                    .filter(file -> !processedNames.contains(file.getName()))
+                    .toArray(File[]::new);
+            if (pdfFiles.length == 0) {
+                logger.info("No new PDF files in directory: {}", directory.getPath());
+                return "Không có file PDF mới trong thư mục!";
+            }
+        }
+
+        long start = System.nanoTime();
+        List<ResultSink.Factory> sinkFactories = new ArrayList<>();
+        sinkFactories.add(TxtResultSink.factory());
+        sinkFactories.addAll(extraSinks);
+        try (ResultFanOut sinks = ResultFanOut.open(sinkFactories, directory, append)) {
+            processFiles(directory, pdfFiles, sinks, overallStatus);
+            journal.record(Stage.FOLDER, Outcome.OK, directory.getName(), combinedFileName, System.nanoTime() - start);
             logger.info("Successfully processed {} files in directory: {}", pdfFiles.length, directory.getPath());
         } catch (IOException e) {
             logger.error("Error creating combined file: {}", combinedFile.getPath(), e);
             throw new PDFProcessingException("Đã xảy ra lỗi khi tạo file tổng hợp: " + e.getMessage());
+        } finally {
+            if (terminalIndex != null) {
+                terminalIndex.flush();
+            }
         }
 
         return overallStatus.toString();
     }
 
+    private Set<String> readProcessedFileNames(File combinedFile) {
+        Set<String> names = new HashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(combinedFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(TxtResultSink.FILE_MARKER)) {
+                    names.add(line.substring(TxtResultSink.FILE_MARKER.length()).trim());
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error reading combined file: {}", combinedFile.getPath(), e);
+            throw new PDFProcessingException("Đã xảy ra lỗi khi đọc file tổng hợp: " + e.getMessage());
+        }
+        return names;
+    }
+
     private void validateDirectory(File directory) {
         if (directory == null || !directory.exists()) {
             throw new PDFProcessingException("Thư mục không tồn tại!");
@@ -55,42 +201,355 @@ public class PDFService {
         }
     }
 
-    private void processFiles(File[] pdfFiles, FileWriter writer, StringBuilder overallStatus) {
-        Arrays.sort(pdfFiles); // Sort files for consistent processing order
+    private void processFiles(File directory, File[] pdfFiles, ResultSink sinks, StringBuilder overallStatus) {
+        String folder = directory.getName();
+        // Pre-scan rejects non-PDF and image-only files without a full parse, and returns the rest
+        // in name order for a consistent TXT
+        PDFPreScanner.Triage triage = preScanner.triage(pdfFiles);
+        List<FailedFile> failures = new ArrayList<>();
+        for (PDFPreScanner.ScanResult rejected : triage.rejected()) {
+            journal.record(Stage.PRESCAN, Outcome.REJECTED, folder, rejected.file().getName(),
+                    rejected.durationNanos(), rejected.category(), rejected.reason());
+            failures.add(new FailedFile(rejected.file().getName(), rejected.category(), rejected.reason()));
+            overallStatus.append(rejected.file().getName()).append(": Bỏ qua! Chi tiết: ")
+                    .append(rejected.reason()).append("\n");
+        }
+
+        new FolderRun(directory, triage.accepted(), sinks, failures, overallStatus).run();
+
+        writeFailureReport(directory, failures, overallStatus);
+    }
+
+    /**
+     * Extracts one folder's files concurrently, each under a {@link ConcurrencyGovernor} permit, and
+     * writes the results in the order of {@code files}. Whichever thread completes the next file
+     * due writes it together with any later ones that are already done, so the sinks, the status
+     * text and the failure list are only touched by one thread at a time and in order.
+     * <p>
+     * The calling thread claims files too, so the folder progresses even when no helper gets
+     * to run. Helpers only wait on the watchdog, so they have their own pool. Interrupting the
+     * calling thread cancels the files not yet extracted, including those on helpers.
+     */
+    private final class FolderRun {
+        private final File directory;
+        private final String folder;
+        private final List<File> files;
+        private final ResultSink sinks;
+        private final List<FailedFile> failures;
+        private final StringBuilder overallStatus;
+        private final FileOutcome[] outcomes;
+        private final AtomicInteger nextFile = new AtomicInteger();
+        private final Set<Thread> helpers = new HashSet<>();
+        private volatile boolean cancelled;
+        private int nextToWrite;
+
+        FolderRun(File directory, List<File> files, ResultSink sinks, List<FailedFile> failures,
+                  StringBuilder overallStatus) {
+            this.directory = directory;
+            this.folder = directory.getName();
+            this.files = files;
+            this.sinks = sinks;
+            this.failures = failures;
+            this.overallStatus = overallStatus;
+            this.outcomes = new FileOutcome[files.size()];
+        }
+
+        void run() {
+            int helperCount = Math.min(files.size(), ConcurrencyGovernor.maxWorkers()) - 1;
+            CountDownLatch done = new CountDownLatch(Math.max(0, helperCount));
+            AtomicReference<RuntimeException> failure = new AtomicReference<>();
+            for (int i = 0; i < helperCount; i++) {
+                try {
+                    folderHelpers.execute(() -> {
+                        try {
+                            helpFolder();
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, e);
+                            cancel();
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    done.countDown();
+                }
+            }
+            try {
+                work();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                cancel();
+            }
+
+            // The sinks are closed once this returns, so wait for every helper first
+            boolean interrupted = Thread.interrupted();
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    cancel();
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+        }
+
+        private void helpFolder() {
+            Thread self = Thread.currentThread();
+            synchronized (helpers) {
+                if (cancelled) {
+                    return;
+                }
+                helpers.add(self);
+            }
+            try {
+                work();
+            } finally {
+                synchronized (helpers) {
+                    helpers.remove(self);
+                }
+                Thread.interrupted(); // a cancel must not leak into the next pooled task
+            }
+        }
+
+        private void work() {
+            int index;
+            while ((index = nextFile.getAndIncrement()) < files.size()) {
+                complete(index, extractOne(files.get(index)));
+                if (Thread.currentThread().isInterrupted()) {
+                    cancel();
+                }
+            }
+        }
+
+        private FileOutcome extractOne(File file) {
+            long start = System.nanoTime();
+            try {
+                if (cancelled) {
+                    throw new PDFProcessingException(FailureCategory.CANCELLED, "Đã hủy xử lý " + file.getName());
+                }
+                PDFData data = extract(file);
+                if (data == null) {
+                    journal.record(Stage.EXTRACT, Outcome.NO_DATA, folder, file.getName(), System.nanoTime() - start,
+                            FailureCategory.NO_DATA, null);
+                } else {
+                    journal.record(Stage.EXTRACT, Outcome.OK, folder, file.getName(), System.nanoTime() - start);
+                }
+                return new FileOutcome(file, data, null);
+            } catch (PDFProcessingException e) {
+                journal.record(Stage.EXTRACT, Outcome.FAILED, folder, file.getName(), System.nanoTime() - start,
+                        e.getCategory(), e.getMessage());
+                logger.debug("Error processing file: {}", file.getName(), e);
+                return new FileOutcome(file, null, e);
+            }
+        }
+
+        private synchronized void complete(int index, FileOutcome outcome) {
+            outcomes[index] = outcome;
+            while (nextToWrite < outcomes.length && outcomes[nextToWrite] != null) {
+                FileOutcome next = outcomes[nextToWrite];
+                outcomes[nextToWrite++] = null;
+                write(next);
+            }
+        }
+
+        private void write(FileOutcome outcome) {
+            File file = outcome.file();
+            if (outcome.failure() != null) {
+                failures.add(new FailedFile(file.getName(), outcome.failure().getCategory(), outcome.failure().getMessage()));
+                overallStatus.append(file.getName()).append(": Lỗi khi xử lý! Chi tiết: ")
+                        .append(outcome.failure().getMessage()).append("\n");
+                return;
+            }
+            if (outcome.data() == null) {
+                overallStatus.append(file.getName()).append(": không tìm thấy dữ liệu cần thiết!\n");
+                failures.add(new FailedFile(file.getName(), FailureCategory.NO_DATA,
+                        "Không tìm thấy dữ liệu cần thiết"));
+                return;
+            }
 
-        for (File file : pdfFiles) {
-            try (PDDocument document = PDDocument.load(file)) {
-                processIndividualFile(file, document, writer, overallStatus);
+            long start = System.nanoTime();
+            try {
+                processIndividualFile(directory, file, outcome.data(), sinks, overallStatus);
+                journal.record(Stage.WRITE, Outcome.OK, folder, file.getName(), System.nanoTime() - start);
+                StartupMetrics.markFirstFileConverted();
             } catch (IOException e) {
-                logger.error("Error processing file: {}", file.getName(), e);
+                journal.record(Stage.WRITE, Outcome.FAILED, folder, file.getName(), System.nanoTime() - start,
+                        FailureCategory.IO_ERROR, e.getMessage());
+                logger.debug("Error writing result of file: {}", file.getName(), e);
+                failures.add(new FailedFile(file.getName(), FailureCategory.IO_ERROR, e.getMessage()));
                 overallStatus.append(file.getName()).append(": Lỗi khi xử lý! Chi tiết: ")
                         .append(e.getMessage()).append("\n");
             }
         }
+
+        private void cancel() {
+            synchronized (helpers) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                helpers.forEach(Thread::interrupt);
+            }
+        }
+    }
+
+    /**
+     * Extracts a single in-memory PDF under the same watchdog budgets as folder processing.
+     *
+     * @return the extracted data, or {@code null} when the document has no matching fields
+     */
+    public PDFData extract(byte[] pdfBytes, String fileName) throws PDFProcessingException {
+        return governed(fileName, guard -> {
+            try (PDDocument document = parse(new RandomAccessBuffer(pdfBytes), guard)) {
+                return extractDocument(document, () -> parse(new RandomAccessBuffer(pdfBytes), guard), guard);
+            } catch (InvalidPasswordException e) {
+                throw encryptedFailure(e);
+            }
+        });
     }
 
-    private void processIndividualFile(File file, PDDocument document, FileWriter writer, StringBuilder overallStatus)
-            throws IOException {
-        PDFTextStripper stripper = new PDFTextStripper();
-        String text = stripper.getText(document);
-        String filteredData = RegexExtractor.extractSpecificData(text);
+    /**
+     * Extracts a single PDF file under the same watchdog budgets as folder processing.
+     *
+     * @return the extracted data, or {@code null} when the document has no matching fields
+     */
+    public PDFData extract(File file) throws PDFProcessingException {
+        return governed(file.getName(), guard -> extractFile(file, guard));
+    }
+
+    /**
+     * Runs one file's extraction under the watchdog, holding a {@link ConcurrencyGovernor} permit
+     * until the worker thread has actually stopped: a file aborted for time or allocation keeps
+     * its permit while it unwinds, so abandoned workers count against the limit.
+     */
+    private PDFData governed(String fileName, FileWatchdog.GuardedWork<PDFData> extraction)
+            throws PDFProcessingException {
+        try {
+            governor.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PDFProcessingException(FailureCategory.CANCELLED, "Đã hủy xử lý " + fileName, e);
+        }
+        return fileWatchdog.run(fileName, extraction, governor::release);
+    }
 
-        if (filteredData.isEmpty()) {
-            logger.warn("No data found in file: {}", file.getName());
-            overallStatus.append(file.getName()).append(": không tìm thấy dữ liệu cần thiết!\n");
-            return;
+    private PDFData extractFile(File file, FileWatchdog.Guard guard) throws IOException {
+        try (PDDocument document = loadDocument(file, guard)) {
+            return extractDocument(document, () -> loadDocument(file, guard), guard);
+        } catch (InvalidPasswordException e) {
+            throw encryptedFailure(e);
         }
+    }
 
-        writeToFile(writer, file.getName(), filteredData);
+    /**
+     * Opens a PDF through a memory mapping, or through PDFBox's buffered file access when mapping
+     * is disabled ({@code -Dpdfconvert.input.mmap=false}) or the file cannot be mapped.
+     */
+    private static PDDocument loadDocument(File file, FileWatchdog.Guard guard) throws IOException {
+        RandomAccessRead source = null;
+        if (MAPPED_INPUT) {
+            try {
+                source = MappedRandomAccessRead.map(file);
+            } catch (IOException e) {
+                logger.debug("Cannot map {}, using buffered file access", file.getName(), e);
+            }
+        }
+        return parse(source != null ? source : new RandomAccessBufferedFileInputStream(file), guard);
+    }
+
+    /**
+     * Parses with the same setup as {@code PDDocument.load}. The source is registered with the guard
+     * before parsing, so a watchdog abort can stop a parse that never returns a document.
+     */
+    private static PDDocument parse(RandomAccessRead source, FileWatchdog.Guard guard) throws IOException {
+        guard.register(source);
+        try {
+            // The document closes the source
+            PDFParser parser = new PDFParser(source);
+            parser.parse();
+            return parser.getPDDocument();
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    private PDFData extractDocument(PDDocument document, ParallelPageStripper.DocumentSource source,
+                                    FileWatchdog.Guard guard) throws IOException {
+        guard.register(document);
+        String text = pageStripper.getText(document, source, guard);
+        return RegexExtractor.extractData(text);
+    }
+
+    private static PDFProcessingException encryptedFailure(InvalidPasswordException e) {
+        return new PDFProcessingException(FailureCategory.ENCRYPTED, "File PDF được bảo vệ bằng mật khẩu", e);
+    }
+
+    private void processIndividualFile(File directory, File file, PDFData data, ResultSink sinks,
+                                       StringBuilder overallStatus) throws IOException {
+        sinks.accept(new DataEntry(data, file.getName()));
         overallStatus.append(file.getName()).append(": Chuyển đổi thành công!\n");
-        logger.info("Successfully processed file: {}", file.getName());
+        RecordListener listener = recordListener;
+        if (listener != null) {
+            listener.onRecord(directory.getName(), file.getName(), data);
+        }
+
+        if (terminalIndex != null) {
+            TerminalIndexService.IndexResult result =
+                    terminalIndex.record(directory.getAbsolutePath(), file.getName(), data);
+            if (result.isFlagged()) {
+                appendIndexWarning(file, data, result, overallStatus);
+            }
+        }
+    }
+
+    /**
+     * Lists every file that was aborted or produced no record, with its failure category, in
+     * {@code <folder>_failures.tsv}. The report is removed when a run has no failures.
+     */
+    private void writeFailureReport(File directory, List<FailedFile> failures, StringBuilder overallStatus) {
+        File reportFile = new File(directory, directory.getName() + FAILURE_REPORT_SUFFIX);
+        try {
+            if (failures.isEmpty()) {
+                Files.deleteIfExists(reportFile.toPath());
+                return;
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(FAILURE_REPORT_HEADER);
+                for (FailedFile failure : failures) {
+                    writer.write(failureLine(failure.fileName(), failure.category(), failure.reason()));
+                }
+            }
+            overallStatus.append(failures.size()).append(" file lỗi, xem ").append(reportFile.getName()).append("\n");
+        } catch (IOException e) {
+            logger.error("Error writing failure report: {}", reportFile.getPath(), e);
+        }
     }
 
-    private void writeToFile(FileWriter writer, String fileName, String data) throws IOException{
-        writer.write("File: " + fileName + "\n");
-        writer.write(data);
-        writer.write("\n\n");
-        writer.write("----------------------------------------------------------------\n");
-        writer.flush();
+    static String failureLine(String fileName, FailureCategory category, String reason) {
+        return fileName + "\t" + category + "\t"
+                + String.valueOf(reason).replace('\t', ' ').replace('\n', ' ') + "\n";
+    }
+
+    private void appendIndexWarning(File file, PDFData data, TerminalIndexService.IndexResult result,
+                                    StringBuilder overallStatus) {
+        boolean conflict = result.status() == TerminalIndexService.Status.CONFLICT;
+        String label = conflict ? "Xung đột" : "Trùng lặp";
+        journal.record(Stage.INDEX, conflict ? Outcome.CONFLICT : Outcome.DUPLICATE,
+                file.getParentFile().getName(), file.getName(), 0, null, data.getTerminalId());
+        for (TerminalIndexService.Sighting previous : result.previous()) {
+            overallStatus.append(file.getName()).append(": ").append(label)
+                    .append(" TID ").append(data.getTerminalId())
+                    .append(" với ").append(previous.folder()).append(File.separator).append(previous.fileName())
+                    .append(" (MID: ").append(previous.merchantId())
+                    .append(", Số serial: ").append(previous.serialNumber()).append(")\n");
+        }
     }
 }
\ No newline at end of file
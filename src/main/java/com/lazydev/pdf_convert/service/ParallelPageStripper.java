@@ -0,0 +1,122 @@
+package com.lazydev.pdf_convert.service;
+
+import com.lazydev.pdf_convert.util.FileWatchdog;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Extracts the text of long documents in page ranges stripped concurrently, so one file of
+ * several hundred pages does not keep the batch waiting on a single thread.
+ * <p>
+ * A {@code PDDocument} is not thread-safe, so each extra range opens its own handle on the same
+ * source; the calling thread strips the first range with the document it already has. Ranges run
+ * on a pool of their own, never on the batch pool, which may be waiting for this very file. The
+ * range texts are joined in page order and equal what a single {@link PDFTextStripper} returns.
+ */
+class ParallelPageStripper {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelPageStripper.class);
+
+    static final int DEFAULT_PAGE_THRESHOLD = 64;
+    private static final int MIN_PAGES_PER_RANGE = 16;
+
+    @FunctionalInterface
+    interface DocumentSource {
+        PDDocument open() throws IOException;
+    }
+
+    private final int pageThreshold;
+    private final int parallelism;
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final ExecutorService pageWorkers;
+
+    ParallelPageStripper(int pageThreshold, int parallelism) {
+        this.pageThreshold = pageThreshold;
+        this.parallelism = parallelism;
+        this.pageWorkers = Executors.newFixedThreadPool(Math.max(1, parallelism - 1), r -> {
+            Thread thread = new Thread(r);
+            thread.setName("PDFPageWorker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param document the open document, used for the first range
+     * @param source   opens another handle on the same PDF for the other ranges
+     * @param guard    every extra handle is registered so a watchdog abort closes it as well
+     */
+    String getText(PDDocument document, DocumentSource source, FileWatchdog.Guard guard) throws IOException {
+        int pages = document.getNumberOfPages();
+        int ranges = Math.min(parallelism, pages / MIN_PAGES_PER_RANGE);
+        if (pages < pageThreshold || ranges < 2) {
+            return new PDFTextStripper().getText(document);
+        }
+
+        long start = System.nanoTime();
+        List<Future<String>> rest = new ArrayList<>(ranges - 1);
+        try {
+            for (int i = 1; i < ranges; i++) {
+                int first = firstPage(i, ranges, pages);
+                int last = firstPage(i + 1, ranges, pages) - 1;
+                rest.add(pageWorkers.submit(() -> {
+                    try (PDDocument handle = source.open()) {
+                        guard.register(handle);
+                        return stripRange(handle, first, last);
+                    }
+                }));
+            }
+
+            StringBuilder text = new StringBuilder(stripRange(document, 1, firstPage(1, ranges, pages) - 1));
+            for (Future<String> range : rest) {
+                text.append(range.get());
+            }
+            logger.debug("Stripped {} pages in {} ranges in {} ms", pages, ranges,
+                    (System.nanoTime() - start) / 1_000_000);
+            return text.toString();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while stripping pages");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        } finally {
+            // No-op once every range is done; otherwise stops the others after a failure or abort
+            rest.forEach(range -> range.cancel(true));
+        }
+    }
+
+    /**
+     * First page (1-based) of range {@code index}; ranges differ in size by at most one page.
+     */
+    private static int firstPage(int index, int ranges, int pages) {
+        return (int) ((long) index * pages / ranges) + 1;
+    }
+
+    private static String stripRange(PDDocument document, int first, int last) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(first);
+        stripper.setEndPage(last);
+        return stripper.getText(document);
+    }
+}
@@ -0,0 +1,143 @@
+package com.lazydev.pdf_convert.service;
+
+import com.lazydev.pdf_convert.exception.PDFProcessingException;
+import com.lazydev.pdf_convert.sink.TxtResultSink;
+import com.lazydev.pdf_convert.util.FileLeases;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Final step of a sharded batch: joins the per-worker outputs of a folder into the usual
+ * {@code <folder>.txt}, {@code <folder>_failures.tsv} and XLSX, then removes the shard and lease
+ * directories. A file converted by two workers (after a lease takeover) is taken from the worker
+ * that marked it done.
+ */
+public class ShardMerger {
+    private static final Logger logger = LoggerFactory.getLogger(ShardMerger.class);
+
+    private final ExcelService excelService;
+
+    public ShardMerger(ExcelService excelService) {
+        this.excelService = excelService;
+    }
+
+    public String merge(File folder) throws Exception {
+        Map<String, String> owners = FileLeases.completedOwners(folder);
+        File[] pdfFiles = Optional.ofNullable(folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".pdf")))
+                .orElse(new File[0]);
+        List<String> unfinished = Arrays.stream(pdfFiles)
+                .map(File::getName)
+                .filter(name -> !owners.containsKey(name))
+                .sorted()
+                .toList();
+        if (!unfinished.isEmpty()) {
+            throw new PDFProcessingException("Còn " + unfinished.size() + " file chưa được xử lý xong trong thư mục "
+                    + folder.getName() + ": " + String.join(", ", unfinished.subList(0, Math.min(5, unfinished.size()))));
+        }
+
+        Path shardDir = folder.toPath().resolve(ShardWorker.SHARD_DIR);
+        Map<String, String> records = new TreeMap<>();
+        Map<String, String> failures = new TreeMap<>();
+        for (String workerId : owners.values().stream().distinct().toList()) {
+            readRecords(shardDir.resolve(workerId + ShardWorker.TXT_SUFFIX), workerId, owners, records);
+            readFailures(shardDir.resolve(workerId + ShardWorker.FAILURES_SUFFIX), workerId, owners, failures);
+        }
+
+        File combinedFile = new File(folder, folder.getName() + TxtResultSink.EXTENSION);
+        try (BufferedWriter writer = Files.newBufferedWriter(combinedFile.toPath(), StandardCharsets.UTF_8)) {
+            for (String record : records.values()) {
+                writer.write(record);
+            }
+        }
+        File reportFile = new File(folder, folder.getName() + PDFService.FAILURE_REPORT_SUFFIX);
+        if (failures.isEmpty()) {
+            Files.deleteIfExists(reportFile.toPath());
+        } else {
+            try (BufferedWriter writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(PDFService.FAILURE_REPORT_HEADER);
+                for (String line : failures.values()) {
+                    writer.write(line);
+                }
+            }
+        }
+
+        excelService.convertTxtToExcel(combinedFile);
+        deleteRecursively(shardDir);
+        FileLeases.clear(folder);
+
+        logger.info("Merged {} records and {} failures from {} workers in directory: {}",
+                records.size(), failures.size(), owners.values().stream().distinct().count(), folder.getPath());
+        return folder.getName() + ": " + records.size() + " file chuyển đổi thành công, " + failures.size() + " file lỗi";
+    }
+
+    /**
+     * Splits a shard TXT into records (a {@code File: } line up to the next one), keeping those
+     * this worker owns.
+     */
+    private static void readRecords(Path shardFile, String workerId, Map<String, String> owners,
+                                    Map<String, String> records) throws IOException {
+        if (!Files.exists(shardFile)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(shardFile, StandardCharsets.UTF_8)) {
+            StringBuilder record = new StringBuilder();
+            String fileName = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(TxtResultSink.FILE_MARKER)) {
+                    keepIfOwned(fileName, record, workerId, owners, records);
+                    record.setLength(0);
+                    fileName = line.substring(TxtResultSink.FILE_MARKER.length()).trim();
+                }
+                record.append(line).append('\n');
+            }
+            keepIfOwned(fileName, record, workerId, owners, records);
+        }
+    }
+
+    private static void keepIfOwned(String fileName, StringBuilder record, String workerId,
+                                    Map<String, String> owners, Map<String, String> records) {
+        if (fileName != null && workerId.equals(owners.get(fileName))) {
+            records.put(fileName, record.toString());
+        }
+    }
+
+    private static void readFailures(Path shardFile, String workerId, Map<String, String> owners,
+                                     Map<String, String> failures) throws IOException {
+        if (!Files.exists(shardFile)) {
+            return;
+        }
+        for (String line : Files.readAllLines(shardFile, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab > 0 && workerId.equals(owners.get(line.substring(0, tab)))) {
+                failures.put(line.substring(0, tab), line + "\n");
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
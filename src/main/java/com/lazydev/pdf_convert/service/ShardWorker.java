@@ -0,0 +1,245 @@
+package com.lazydev.pdf_convert.service;
+
+import com.lazydev.pdf_convert.exception.PDFProcessingException;
+import com.lazydev.pdf_convert.exception.PDFProcessingException.FailureCategory;
+import com.lazydev.pdf_convert.model.PDFData;
+import com.lazydev.pdf_convert.sink.TxtResultSink;
+import com.lazydev.pdf_convert.util.EventJournal;
+import com.lazydev.pdf_convert.util.EventJournal.Outcome;
+import com.lazydev.pdf_convert.util.EventJournal.Stage;
+import com.lazydev.pdf_convert.util.FileLeases;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * One process of a sharded batch: claims PDFs from the given folders through {@link FileLeases},
+ * converts them and appends the records to {@code folder/.shards/<workerId>.txt} (failures to
+ * {@code <workerId>_failures.tsv}). Runs until every PDF of every folder is finished by some
+ * worker, waiting on files held by live workers and taking over those of dead ones.
+ * {@link ShardMerger} then builds the usual combined TXT and XLSX.
+ */
+public class ShardWorker {
+    private static final Logger logger = LoggerFactory.getLogger(ShardWorker.class);
+
+    public static final String SHARD_DIR = ".shards";
+    static final String TXT_SUFFIX = TxtResultSink.EXTENSION;
+    static final String FAILURES_SUFFIX = "_failures.tsv";
+    private static final Pattern WORKER_ID = Pattern.compile("[A-Za-z0-9_.-]+");
+
+    private final String workerId;
+    private final int threads;
+    private final Duration leaseTtl;
+    private final PDFService pdfService = new PDFService();
+    private final PDFPreScanner preScanner = new PDFPreScanner();
+    private final EventJournal journal = EventJournal.get();
+    private final Map<File, ShardOutput> outputs = new ConcurrentHashMap<>();
+    private final AtomicInteger converted = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public ShardWorker(String workerId, int threads, Duration leaseTtl) {
+        if (!WORKER_ID.matcher(workerId).matches()) {
+            throw new IllegalArgumentException("Worker id may only contain letters, digits, '_', '.' and '-': " + workerId);
+        }
+        this.workerId = workerId;
+        this.threads = Math.max(1, threads);
+        this.leaseTtl = leaseTtl;
+    }
+
+    /**
+     * Shard files of one folder, shared by this worker's threads.
+     */
+    private static final class ShardOutput {
+        private final Writer records;
+        private final Writer failures;
+
+        ShardOutput(File folder, String workerId) throws IOException {
+            Path shardDir = folder.toPath().resolve(SHARD_DIR);
+            Files.createDirectories(shardDir);
+            // Append: a restarted worker keeps what it wrote before, the merge drops duplicates
+            records = Files.newBufferedWriter(shardDir.resolve(workerId + TXT_SUFFIX), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            failures = Files.newBufferedWriter(shardDir.resolve(workerId + FAILURES_SUFFIX), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        synchronized void writeRecord(String fileName, PDFData data) throws IOException {
+            TxtResultSink.writeRecord(records, fileName, data.toString());
+        }
+
+        synchronized void writeFailure(String fileName, FailureCategory category, String reason) throws IOException {
+            failures.write(PDFService.failureLine(fileName, category, reason));
+            failures.flush();
+        }
+
+        synchronized void close() throws IOException {
+            records.close();
+            failures.close();
+        }
+    }
+
+    public String run(List<File> folders) throws Exception {
+        List<File> pending = listPdfFiles(folders);
+        int total = pending.size();
+        logger.info("Shard worker {} started: {} files in {} folders, {} threads",
+                workerId, total, folders.size(), threads);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "ShardWorker-" + workerId + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileLeases leases = new FileLeases(workerId, leaseTtl)) {
+            while (!pending.isEmpty()) {
+                pending = runPass(pending, leases, executor);
+                if (!pending.isEmpty()) {
+                    logger.info("Shard worker {}: {} files held by other workers, waiting", workerId, pending.size());
+                    Thread.sleep(Math.max(100, leaseTtl.toMillis() / 4));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            for (ShardOutput output : outputs.values()) {
+                output.close();
+            }
+        }
+
+        String summary = "Worker " + workerId + ": " + converted.get() + " file chuyển đổi thành công, "
+                + failed.get() + " file lỗi, " + (total - converted.get() - failed.get()) + " file do worker khác xử lý";
+        logger.info(summary);
+        return summary;
+    }
+
+    /**
+     * Each worker starts at a different offset of the same sorted list, so concurrent workers
+     * rarely race for the same lease.
+     */
+    private List<File> listPdfFiles(List<File> folders) {
+        List<File> files = new ArrayList<>();
+        for (File folder : folders) {
+            if (!folder.isDirectory()) {
+                throw new PDFProcessingException("Thư mục không hợp lệ: " + folder.getPath());
+            }
+            File[] pdfFiles = Optional.ofNullable(folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".pdf")))
+                    .orElse(new File[0]);
+            Arrays.sort(pdfFiles);
+            files.addAll(Arrays.asList(pdfFiles));
+        }
+        if (!files.isEmpty()) {
+            Collections.rotate(files, -Math.floorMod(workerId.hashCode(), files.size()));
+        }
+        return files;
+    }
+
+    /**
+     * @return files that were held by other live workers
+     */
+    private List<File> runPass(List<File> files, FileLeases leases, ExecutorService executor) throws Exception {
+        Queue<File> queue = new ConcurrentLinkedQueue<>(files);
+        Queue<File> held = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                File file;
+                while ((file = queue.poll()) != null) {
+                    switch (leases.tryClaim(file)) {
+                        case CLAIMED -> process(file, leases);
+                        case HELD -> held.add(file);
+                        case DONE -> { }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return new ArrayList<>(held);
+    }
+
+    private void process(File file, FileLeases leases) throws IOException {
+        File folder = file.getParentFile();
+        ShardOutput output = outputFor(folder);
+        String folderName = folder.getName();
+        long start = System.nanoTime();
+
+        PDFPreScanner.ScanResult scan = preScanner.scan(file);
+        if (!scan.parseable()) {
+            journal.record(Stage.PRESCAN, Outcome.REJECTED, folderName, file.getName(), scan.durationNanos(),
+                    scan.category(), scan.reason());
+            output.writeFailure(file.getName(), scan.category(), scan.reason());
+            finish(file, leases, false);
+            return;
+        }
+
+        PDFData data;
+        try {
+            data = pdfService.extract(file);
+        } catch (PDFProcessingException e) {
+            journal.record(Stage.EXTRACT, Outcome.FAILED, folderName, file.getName(), System.nanoTime() - start,
+                    e.getCategory(), e.getMessage());
+            output.writeFailure(file.getName(), e.getCategory(), e.getMessage());
+            finish(file, leases, false);
+            return;
+        }
+        if (data == null) {
+            journal.record(Stage.EXTRACT, Outcome.NO_DATA, folderName, file.getName(), System.nanoTime() - start,
+                    FailureCategory.NO_DATA, null);
+            output.writeFailure(file.getName(), FailureCategory.NO_DATA, "Không tìm thấy dữ liệu cần thiết");
+            finish(file, leases, false);
+            return;
+        }
+        journal.record(Stage.EXTRACT, Outcome.OK, folderName, file.getName(), System.nanoTime() - start);
+
+        // The record is flushed before the file is marked done, so a crash in between only causes
+        // a second conversion by whoever takes the lease over
+        output.writeRecord(file.getName(), data);
+        finish(file, leases, true);
+    }
+
+    private void finish(File file, FileLeases leases, boolean success) throws IOException {
+        if (!leases.complete(file)) {
+            logger.warn("File {} was finished by another worker, worker {} output ignored", file.getName(), workerId);
+            return;
+        }
+        (success ? converted : failed).incrementAndGet();
+    }
+
+    private ShardOutput outputFor(File folder) throws IOException {
+        try {
+            return outputs.computeIfAbsent(folder, f -> {
+                try {
+                    return new ShardOutput(f, workerId);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,577 @@
+package com.lazydev.pdf_convert.service;
+
+import com.lazydev.pdf_convert.model.DataEntry;
+import com.lazydev.pdf_convert.util.ParallelDeflateZipWriter;
+import com.lazydev.pdf_convert.util.ZipDirectory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipFile;
+
+/**
+ * Writes the data workbooks of {@link ExcelService} as SpreadsheetML directly, with the same
+ * layout {@code SXSSFWorkbook} produced (inline strings, bold centred header row, fixed column
+ * widths), through {@link ParallelDeflateZipWriter} so the sheet XML is compressed on every core
+ * instead of on the thread that serializes it. Sheets can also be serialized and compressed ahead
+ * of time ({@link #compress}) on whichever thread has their data, spilled to a temp file, and
+ * spliced in as they are.
+ */
+class StreamingXlsxWriter {
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String OFFICE_RELATIONSHIPS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final int HEADER_STYLE = 1;
+    private static final String CONTENT_TYPES_ENTRY = "[Content_Types].xml";
+    private static final String PACKAGE_RELATIONSHIPS_ENTRY = "_rels/.rels";
+    private static final String WORKBOOK_ENTRY = "xl/workbook.xml";
+    private static final String WORKBOOK_RELATIONSHIPS_ENTRY = "xl/_rels/workbook.xml.rels";
+    private static final String STYLES_ENTRY = "xl/styles.xml";
+    private static final byte[] SHEET_DATA_START = utf8("<sheetData>");
+    private static final byte[] SHEET_DATA_END = utf8("</sheetData>");
+    // The part of a sheet before its rows: declaration, dimension, views and column widths
+    private static final int MAX_SHEET_HEAD_BYTES = 64 << 10;
+    private static final Pattern DIMENSION = Pattern.compile("<dimension ref=\"A1:([A-Z]+)(\\d+)\"/>");
+    private static final Pattern COLUMN_WIDTH = Pattern.compile("<col min=\"(\\d+)\" max=\"\\d+\" width=\"([0-9.]+)\"");
+    private static final Pattern SHEET_NAME = Pattern.compile("<sheet name=\"([^\"]*)\" sheetId=\"\\d+\" r:id=\"rId\\d+\"/>");
+
+    // Style 1 is the header: bold, centred
+    private static final String STYLES = XML_DECLARATION + "<styleSheet xmlns=\"" + MAIN_NS + "\">"
+            + "<fonts count=\"2\">"
+            + "<font><sz val=\"11.0\"/><color indexed=\"8\"/><name val=\"Calibri\"/><family val=\"2\"/><scheme val=\"minor\"/></font>"
+            + "<font><b val=\"true\"/><sz val=\"11.0\"/><name val=\"Calibri\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+            + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+            + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"true\" applyAlignment=\"true\">"
+            + "<alignment horizontal=\"center\"/></xf></cellXfs>"
+            + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+            + "</styleSheet>";
+
+    /**
+     * Consecutive rows sharing the value of the leading label column.
+     */
+    record Segment(String label, List<DataEntry> entries) { }
+
+    /**
+     * @param labelHeader  header of a leading column filled with each segment's label, or
+     *                     {@code null} for none
+     * @param columnWidths one per column, the label column included
+     */
+    record Sheet(String name, String labelHeader, List<Segment> segments, int[] columnWidths) {
+        Sheet(String name, List<DataEntry> entries, int[] columnWidths) {
+            this(name, null, List.of(new Segment(null, entries)), columnWidths);
+        }
+
+        int rowCount() {
+            int rows = 0;
+            for (Segment segment : segments) {
+                rows += segment.entries().size();
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Sheet XML compressed by {@link #compress} into a temp file: raw deflate data, or the XML
+     * itself at level 0. Whoever holds it deletes the file once it has been written or dropped.
+     */
+    record CompressedSheet(String name, File data, boolean deflated, long crc, long size) {
+        CompressedSheet withName(String newName) {
+            return new CompressedSheet(newName, data, deflated, crc, size);
+        }
+
+        void delete() {
+            if (data.exists() && !data.delete()) {
+                data.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * A workbook written by this class, as {@link #layout} reads it back.
+     *
+     * @param lastSheetRows data rows on the last sheet, header excluded
+     * @param sheetXmlBytes uncompressed size of all sheet XML
+     */
+    record Layout(List<String> sheetNames, int lastSheetRows, long sheetXmlBytes) { }
+
+    private final int compressionLevel;
+
+    StreamingXlsxWriter(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    void write(File file, List<String> headers, List<Sheet> sheets) throws IOException {
+        write(file, headers, sheets, List.of());
+    }
+
+    /**
+     * Writes {@code sheets} first, then the {@code compressed} ones in the order given.
+     */
+    void write(File file, List<String> headers, List<Sheet> sheets, List<CompressedSheet> compressed)
+            throws IOException {
+        List<String> names = new ArrayList<>();
+        sheets.forEach(sheet -> names.add(sheet.name()));
+        compressed.forEach(sheet -> names.add(sheet.name()));
+
+        try (ParallelDeflateZipWriter zip = new ParallelDeflateZipWriter(file, compressionLevel)) {
+            zip.putEntry(CONTENT_TYPES_ENTRY, contentTypes(names.size()));
+            zip.putEntry(PACKAGE_RELATIONSHIPS_ENTRY, utf8(XML_DECLARATION + "<Relationships xmlns=\"" + RELATIONSHIPS_NS + "\">"
+                    + "<Relationship Id=\"rId1\" Type=\"" + OFFICE_RELATIONSHIPS + "/officeDocument\""
+                    + " Target=\"xl/workbook.xml\"/></Relationships>"));
+            zip.putEntry(WORKBOOK_ENTRY, workbook(names));
+            zip.putEntry(WORKBOOK_RELATIONSHIPS_ENTRY, workbookRelationships(names.size()));
+            zip.putEntry(STYLES_ENTRY, utf8(STYLES));
+            for (int i = 0; i < sheets.size(); i++) {
+                // Rows are batched in a StringBuilder, so no BufferedWriter
+                try (Writer writer = new OutputStreamWriter(
+                        zip.putEntry(sheetEntry(i + 1)), StandardCharsets.UTF_8)) {
+                    writeSheet(writer, headers, sheets.get(i), i == 0);
+                }
+            }
+            for (int i = 0; i < compressed.size(); i++) {
+                CompressedSheet sheet = compressed.get(i);
+                zip.putCompressedEntry(sheetEntry(sheets.size() + i + 1),
+                        sheet.data(), sheet.deflated(), sheet.crc(), sheet.size());
+            }
+        }
+    }
+
+    /**
+     * Serializes and compresses one sheet on the calling thread into a temp file, for a later
+     * {@link #write} where it is not the first sheet.
+     */
+    CompressedSheet compress(List<String> headers, Sheet sheet) throws IOException {
+        File spill = File.createTempFile("pdfconvert-sheet-", ".part");
+        Deflater deflater = compressionLevel == 0 ? null : new Deflater(compressionLevel, true);
+        boolean done = false;
+        try {
+            OutputStream file = new BufferedOutputStream(new FileOutputStream(spill), 64 << 10);
+            OutputStream target = deflater == null ? file : new DeflaterOutputStream(file, deflater, 64 << 10);
+            CrcOutputStream checked = new CrcOutputStream(target);
+            try (Writer writer = new OutputStreamWriter(checked, StandardCharsets.UTF_8)) {
+                writeSheet(writer, headers, sheet, false);
+            }
+            done = true;
+            return new CompressedSheet(sheet.name(), spill, deflater != null, checked.crc.getValue(), checked.size);
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            if (!done && !spill.delete()) {
+                spill.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Reads what {@link #append} needs from a workbook this class wrote.
+     *
+     * @return the layout, or {@code null} when {@code file} has entries this class does not write
+     * (e.g. a workbook saved by Excel or POI), which the caller rebuilds instead
+     */
+    static Layout layout(File file) throws IOException {
+        List<ZipDirectory.Entry> entries;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            entries = ZipDirectory.read(channel);
+        }
+        Set<String> expected = new HashSet<>(List.of(CONTENT_TYPES_ENTRY, PACKAGE_RELATIONSHIPS_ENTRY, WORKBOOK_ENTRY,
+                WORKBOOK_RELATIONSHIPS_ENTRY, STYLES_ENTRY));
+        long sheetXmlBytes = 0;
+        int sheetCount = 0;
+        for (ZipDirectory.Entry entry : entries) {
+            if (entry.name().equals(sheetEntry(sheetCount + 1))) {
+                sheetCount++;
+                sheetXmlBytes += entry.size();
+            } else if (!expected.remove(entry.name())) {
+                return null;
+            }
+        }
+        if (!expected.isEmpty() || sheetCount == 0) {
+            return null;
+        }
+
+        try (ZipFile zip = new ZipFile(file)) {
+            List<String> sheetNames = new ArrayList<>();
+            String workbook;
+            try (InputStream in = zip.getInputStream(zip.getEntry(WORKBOOK_ENTRY))) {
+                workbook = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            Matcher sheet = SHEET_NAME.matcher(workbook);
+            while (sheet.find()) {
+                sheetNames.add(unescape(sheet.group(1)));
+            }
+            if (sheetNames.size() != sheetCount) {
+                return null;
+            }
+
+            String head;
+            try (InputStream in = new BufferedInputStream(zip.getInputStream(zip.getEntry(sheetEntry(sheetCount))))) {
+                head = readSheetHead(in);
+            }
+            Matcher dimension = head == null ? null : DIMENSION.matcher(head);
+            if (dimension == null || !dimension.find()) {
+                return null;
+            }
+            return new Layout(sheetNames, Integer.parseInt(dimension.group(2)) - 1, sheetXmlBytes);
+        }
+    }
+
+    /**
+     * Rewrites {@code source} into {@code target} with rows added, without loading either: every
+     * entry but the last sheet and the workbook's sheet list is copied still compressed, the last
+     * sheet is streamed up to its {@code </sheetData>} with {@code tail} appended after its rows,
+     * and {@code newSheets} follow it. Only {@code tail} is measured for the last sheet's widths,
+     * which are widened, never narrowed.
+     *
+     * @param tailWidths widths of {@code tail} in characters, as in {@link Sheet#columnWidths()}
+     */
+    void append(File source, File target, List<String> headers, Layout layout, List<DataEntry> tail,
+                int[] tailWidths, List<Sheet> newSheets) throws IOException {
+        List<String> names = new ArrayList<>(layout.sheetNames());
+        newSheets.forEach(sheet -> names.add(sheet.name()));
+        String lastSheet = sheetEntry(layout.sheetNames().size());
+
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             ZipFile sourceZip = new ZipFile(source);
+             ParallelDeflateZipWriter zip = new ParallelDeflateZipWriter(target, compressionLevel)) {
+            for (ZipDirectory.Entry entry : ZipDirectory.read(channel)) {
+                switch (entry.name()) {
+                    case CONTENT_TYPES_ENTRY -> zip.putEntry(CONTENT_TYPES_ENTRY, contentTypes(names.size()));
+                    case WORKBOOK_ENTRY -> zip.putEntry(WORKBOOK_ENTRY, workbook(names));
+                    case WORKBOOK_RELATIONSHIPS_ENTRY ->
+                            zip.putEntry(WORKBOOK_RELATIONSHIPS_ENTRY, workbookRelationships(names.size()));
+                    default -> {
+                        if (entry.name().equals(lastSheet) && !tail.isEmpty()) {
+                            try (InputStream in = new BufferedInputStream(
+                                    sourceZip.getInputStream(sourceZip.getEntry(lastSheet)), 64 << 10)) {
+                                appendToSheet(in, zip.putEntry(lastSheet), headers, layout.lastSheetRows(),
+                                        tail, tailWidths);
+                            }
+                        } else {
+                            zip.putCompressedEntry(entry.name(), channel, entry);
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < newSheets.size(); i++) {
+                try (Writer writer = new OutputStreamWriter(
+                        zip.putEntry(sheetEntry(layout.sheetNames().size() + i + 1)), StandardCharsets.UTF_8)) {
+                    writeSheet(writer, headers, newSheets.get(i), false);
+                }
+            }
+        }
+    }
+
+    private static void appendToSheet(InputStream in, OutputStream entry, List<String> headers, int existingRows,
+                                      List<DataEntry> tail, int[] tailWidths) throws IOException {
+        String head = readSheetHead(in);
+        if (head == null) {
+            throw new IOException("Sheet XML has no <sheetData>");
+        }
+        Matcher dimension = DIMENSION.matcher(head);
+        head = dimension.replaceFirst("<dimension ref=\"A1:$1" + (existingRows + tail.size() + 1) + "\"/>");
+
+        Matcher column = COLUMN_WIDTH.matcher(head);
+        StringBuilder widened = new StringBuilder(head.length());
+        while (column.find()) {
+            int index = Integer.parseInt(column.group(1)) - 1;
+            String width = column.group(2);
+            if (index < tailWidths.length && tailWidths[index] > Double.parseDouble(width)) {
+                width = String.valueOf(tailWidths[index]);
+            }
+            column.appendReplacement(widened, Matcher.quoteReplacement(
+                    column.group().substring(0, column.start(2) - column.start()) + width + "\""));
+        }
+        column.appendTail(widened);
+        entry.write(utf8(widened.toString()));
+
+        byte[] rest = copyUntil(in, entry, SHEET_DATA_END);
+        // Rows are batched in a StringBuilder, so no BufferedWriter
+        Writer writer = new OutputStreamWriter(entry, StandardCharsets.UTF_8);
+        StringBuilder xml = new StringBuilder(8 << 10);
+        appendRows(writer, xml, headers, new Sheet(null, tail, tailWidths), existingRows + 2);
+        writer.append(xml).flush();
+        entry.write(SHEET_DATA_END);
+        entry.write(rest);
+        in.transferTo(entry);
+        writer.close();
+    }
+
+    /**
+     * @return the sheet XML through {@code <sheetData>}, or {@code null} if it is not within the
+     * first {@value #MAX_SHEET_HEAD_BYTES} bytes
+     */
+    private static String readSheetHead(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream(4 << 10);
+        int matched = 0;
+        while (head.size() < MAX_SHEET_HEAD_BYTES) {
+            int b = in.read();
+            if (b < 0) {
+                return null;
+            }
+            head.write(b);
+            matched = b == SHEET_DATA_START[matched] ? matched + 1 : (b == SHEET_DATA_START[0] ? 1 : 0);
+            if (matched == SHEET_DATA_START.length) {
+                return head.toString(StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies {@code in} to {@code out} up to the first {@code marker}, which is consumed.
+     *
+     * @return the bytes read past the marker
+     */
+    private static byte[] copyUntil(InputStream in, OutputStream out, byte[] marker) throws IOException {
+        byte[] buffer = new byte[64 << 10];
+        int kept = 0;
+        while (true) {
+            int read = in.read(buffer, kept, buffer.length - kept);
+            if (read < 0) {
+                throw new IOException("Sheet XML ends before " + new String(marker, StandardCharsets.UTF_8));
+            }
+            int length = kept + read;
+            int found = indexOf(buffer, length, marker);
+            if (found >= 0) {
+                out.write(buffer, 0, found);
+                return Arrays.copyOfRange(buffer, found + marker.length, length);
+            }
+            // Keep a possible partial marker for the next read
+            kept = Math.min(marker.length - 1, length);
+            out.write(buffer, 0, length - kept);
+            System.arraycopy(buffer, length - kept, buffer, 0, kept);
+        }
+    }
+
+    private static int indexOf(byte[] bytes, int length, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static void writeSheet(Writer writer, List<String> headers, Sheet sheet, boolean selected)
+            throws IOException {
+        boolean labelled = sheet.labelHeader() != null;
+        String[] columns = columnNames(headers, sheet);
+        int dataStart = labelled ? 1 : 0;
+
+        StringBuilder xml = new StringBuilder(8 << 10);
+        xml.append(XML_DECLARATION).append("<worksheet xmlns=\"").append(MAIN_NS).append("\">")
+                .append("<dimension ref=\"A1:").append(columns[columns.length - 1])
+                .append(sheet.rowCount() + 1).append("\"/>")
+                .append("<sheetViews><sheetView workbookViewId=\"0\"")
+                .append(selected ? " tabSelected=\"true\"" : "").append("/></sheetViews>")
+                .append("<sheetFormatPr defaultRowHeight=\"15.0\"/><cols>");
+        for (int i = 0; i < columns.length; i++) {
+            xml.append("<col min=\"").append(i + 1).append("\" max=\"").append(i + 1)
+                    .append("\" width=\"").append(sheet.columnWidths()[i]).append("\" customWidth=\"true\"/>");
+        }
+        xml.append("</cols><sheetData>\n<row r=\"1\">");
+        if (labelled) {
+            appendCell(xml, columns[0], 1, sheet.labelHeader(), HEADER_STYLE);
+        }
+        for (int i = 0; i < headers.size(); i++) {
+            appendCell(xml, columns[dataStart + i], 1, headers.get(i), HEADER_STYLE);
+        }
+        xml.append("</row>\n");
+
+        appendRows(writer, xml, headers, sheet, 2);
+        xml.append("</sheetData><pageMargins bottom=\"0.75\" footer=\"0.3\" header=\"0.3\" left=\"0.7\"")
+                .append(" right=\"0.7\" top=\"0.75\"/></worksheet>");
+        writer.append(xml);
+    }
+
+    /**
+     * Writes the sheet's data rows numbered from {@code firstRow}, leaving the last batch in {@code xml}.
+     */
+    private static void appendRows(Writer writer, StringBuilder xml, List<String> headers, Sheet sheet, int firstRow)
+            throws IOException {
+        boolean labelled = sheet.labelHeader() != null;
+        String[] columns = columnNames(headers, sheet);
+        int dataStart = labelled ? 1 : 0;
+        int rowNum = firstRow;
+        for (Segment segment : sheet.segments()) {
+            for (DataEntry entry : segment.entries()) {
+                xml.append("<row r=\"").append(rowNum).append("\">");
+                if (labelled) {
+                    appendCell(xml, columns[0], rowNum, segment.label(), 0);
+                }
+                for (int i = 0; i < headers.size(); i++) {
+                    appendCell(xml, columns[dataStart + i], rowNum,
+                            ExcelService.columnValue(entry.data(), entry.fileName(), i), 0);
+                }
+                xml.append("</row>\n");
+                rowNum++;
+                if (xml.length() >= 8 << 10) {
+                    writer.append(xml);
+                    xml.setLength(0);
+                }
+            }
+        }
+    }
+
+    private static String[] columnNames(List<String> headers, Sheet sheet) {
+        String[] columns = new String[headers.size() + (sheet.labelHeader() != null ? 1 : 0)];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columnName(i);
+        }
+        return columns;
+    }
+
+    private static void appendCell(StringBuilder xml, String column, int row, String value, int style) {
+        xml.append("<c r=\"").append(column).append(row).append('"');
+        if (style != 0) {
+            xml.append(" s=\"").append(style).append('"');
+        }
+        if (value == null) {
+            xml.append("/>");
+            return;
+        }
+        xml.append(" t=\"inlineStr\"><is><t");
+        if (!value.isEmpty() && (Character.isWhitespace(value.charAt(0))
+                || Character.isWhitespace(value.charAt(value.length() - 1)))) {
+            xml.append(" xml:space=\"preserve\"");
+        }
+        xml.append('>');
+        appendEscaped(xml, value);
+        xml.append("</t></is></c>");
+    }
+
+    /**
+     * XML-escapes text; characters XML 1.0 cannot carry become {@code ?}, as with POI.
+     */
+    private static void appendEscaped(StringBuilder xml, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> xml.append("&amp;");
+                case '<' -> xml.append("&lt;");
+                case '>' -> xml.append("&gt;");
+                case '"' -> xml.append("&quot;");
+                case '\t', '\n', '\r' -> xml.append(c);
+                default -> xml.append(c < 0x20 || c == 0xFFFE || c == 0xFFFF ? '?' : c);
+            }
+        }
+    }
+
+    private static String columnName(int index) {
+        StringBuilder name = new StringBuilder();
+        for (int n = index + 1; n > 0; n = (n - 1) / 26) {
+            name.insert(0, (char) ('A' + (n - 1) % 26));
+        }
+        return name.toString();
+    }
+
+    private static byte[] contentTypes(int sheetCount) {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\"")
+                .append(" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\"")
+                .append(" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheetCount; i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i).append(".xml\"")
+                    .append(" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return utf8(xml.append("</Types>").toString());
+    }
+
+    private static byte[] workbook(List<String> sheetNames) {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+                .append("<workbook xmlns=\"").append(MAIN_NS).append("\" xmlns:r=\"").append(OFFICE_RELATIONSHIPS)
+                .append("\"><workbookPr date1904=\"false\"/><bookViews><workbookView activeTab=\"0\"/></bookViews><sheets>");
+        for (int i = 0; i < sheetNames.size(); i++) {
+            xml.append("<sheet name=\"");
+            appendEscaped(xml, sheetNames.get(i));
+            xml.append("\" sheetId=\"").append(i + 1).append("\" r:id=\"rId").append(i + 1).append("\"/>");
+        }
+        return utf8(xml.append("</sheets></workbook>").toString());
+    }
+
+    private static byte[] workbookRelationships(int sheetCount) {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+                .append("<Relationships xmlns=\"").append(RELATIONSHIPS_NS).append("\">");
+        for (int i = 1; i <= sheetCount; i++) {
+            xml.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(OFFICE_RELATIONSHIPS)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(sheetCount + 1).append("\" Type=\"").append(OFFICE_RELATIONSHIPS)
+                .append("/styles\" Target=\"styles.xml\"/>");
+        return utf8(xml.append("</Relationships>").toString());
+    }
+
+    private static String sheetEntry(int sheetNumber) {
+        return "xl/worksheets/sheet" + sheetNumber + ".xml";
+    }
+
+    private static String unescape(String xml) {
+        return xml.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&apos;", "'")
+                .replace("&amp;", "&");
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Tracks the CRC and length of the uncompressed XML.
+     */
+    private static final class CrcOutputStream extends FilterOutputStream {
+        private final CRC32 crc = new CRC32();
+        private long size;
+
+        CrcOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            crc.update(b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            crc.update(b, off, len);
+            size += len;
+        }
+    }
+}
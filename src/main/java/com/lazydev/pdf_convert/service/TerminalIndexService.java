@@ -0,0 +1,493 @@
+package com.lazydev.pdf_convert.service;
+
+import com.lazydev.pdf_convert.model.PDFData;
+import com.lazydev.pdf_convert.util.LongIntHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Persistent index of every extracted record keyed by TID, MID and serial number.
+ * <p>
+ * Records are kept column-wise in primitive arrays; each key map points at the newest record
+ * for that key and records of the same key are chained through {@code next*} arrays, so a
+ * lookup is one hash probe plus a walk over that key's own sightings. The index is persisted
+ * as an append-only log that is replayed on first use.
+ */
+public class TerminalIndexService {
+    private static final Logger logger = LoggerFactory.getLogger(TerminalIndexService.class);
+
+    private static final int MAGIC = 0x50444649; // "PDFI"
+    private static final int VERSION = 1;
+    private static final byte RECORD_ENTRY = 1;
+    private static final byte RECORD_KEY_TEXT = 2;
+    private static final int NONE = -1;
+
+    // Numeric keys: up to 15 digits, digit count and an optional leading letter packed above the value
+    private static final int MAX_NUMERIC_DIGITS = 15;
+    private static final int LENGTH_SHIFT = 50;
+    private static final int LETTER_SHIFT = 54;
+    private static final long VALUE_MASK = (1L << LENGTH_SHIFT) - 1;
+    private static final long HASHED_KEY_FLAG = 1L << 63;
+
+    public enum Status { NOT_INDEXED, UNCHANGED, NEW, DUPLICATE, CONFLICT }
+
+    private enum KeyType { TID, MID, SERIAL }
+
+    public record Sighting(String folder, String fileName, String terminalId,
+                           String merchantId, String serialNumber, long seenAt) { }
+
+    public record IndexResult(Status status, List<Sighting> previous) {
+        public boolean isFlagged() {
+            return status == Status.DUPLICATE || status == Status.CONFLICT;
+        }
+    }
+
+    private final File indexFile;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntHashMap tidHead = new LongIntHashMap(1 << 16);
+    private final LongIntHashMap midHead = new LongIntHashMap(1 << 16);
+    private final LongIntHashMap serialHead = new LongIntHashMap(1 << 16);
+    private final Map<Long, String> hashedKeyText = new HashMap<>();
+    private final List<String> folders = new ArrayList<>();
+    private final Map<String, Integer> folderIds = new HashMap<>();
+
+    private long[] tids = new long[1024];
+    private long[] mids = new long[1024];
+    private long[] serials = new long[1024];
+    private long[] seenAt = new long[1024];
+    private int[] folderOf = new int[1024];
+    private String[] fileNames = new String[1024];
+    private int[] nextByTid = new int[1024];
+    private int[] nextByMid = new int[1024];
+    private int[] nextBySerial = new int[1024];
+    private int count;
+
+    private volatile boolean loaded;
+    private boolean closed;
+    private boolean readOnly;
+    private DataOutputStream journal;
+
+    public TerminalIndexService(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    public static File defaultIndexFile() {
+        return new File(System.getProperty("user.home"), ".pdf_convert" + File.separator + "terminal-index.bin");
+    }
+
+    /**
+     * Adds a record to the index and reports how it relates to earlier sightings:
+     * the same TID with the same MID and serial is a duplicate, the same TID or serial with
+     * different identifiers is a conflict. Re-processing the same file in the same folder is a no-op.
+     */
+    public IndexResult record(String folder, String fileName, PDFData data) {
+        long tid = encodeKey(data.getTerminalId());
+        long mid = encodeKey(data.getMerchantId());
+        long serial = encodeKey(data.getSerialNumber());
+        if (tid == 0 && serial == 0) {
+            return new IndexResult(Status.NOT_INDEXED, List.of());
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return new IndexResult(Status.NOT_INDEXED, List.of());
+            }
+            ensureLoaded();
+            int folderId = folderIds.getOrDefault(folder, NONE);
+
+            Status status = Status.NEW;
+            List<Sighting> previous = new ArrayList<>();
+            if (tid != 0) {
+                for (int i = tidHead.get(tid, NONE); i != NONE; i = nextByTid[i]) {
+                    if (folderOf[i] == folderId && fileNames[i].equals(fileName)) {
+                        return new IndexResult(Status.UNCHANGED, List.of());
+                    }
+                    boolean sameIds = mids[i] == mid && serials[i] == serial;
+                    status = worse(status, sameIds ? Status.DUPLICATE : Status.CONFLICT);
+                    previous.add(toSighting(i));
+                }
+            }
+            if (serial != 0) {
+                for (int i = serialHead.get(serial, NONE); i != NONE; i = nextBySerial[i]) {
+                    if (folderOf[i] == folderId && fileNames[i].equals(fileName)) {
+                        return new IndexResult(Status.UNCHANGED, List.of());
+                    }
+                    if (tids[i] != tid) {
+                        status = Status.CONFLICT;
+                        previous.add(toSighting(i));
+                    }
+                }
+            }
+
+            rememberKeyText(tid, data.getTerminalId());
+            rememberKeyText(mid, data.getMerchantId());
+            rememberKeyText(serial, data.getSerialNumber());
+            long now = System.currentTimeMillis();
+            append(tid, mid, serial, now, internFolder(folder), fileName);
+            writeEntry(tid, mid, serial, now, folder, fileName);
+            return new IndexResult(status, previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Sighting> findByTerminalId(String terminalId) {
+        return find(KeyType.TID, encodeKey(terminalId));
+    }
+
+    public List<Sighting> findByMerchantId(String merchantId) {
+        return find(KeyType.MID, encodeKey(merchantId));
+    }
+
+    public List<Sighting> findBySerialNumber(String serialNumber) {
+        return find(KeyType.SERIAL, encodeKey(serialNumber));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.flush();
+            }
+        } catch (IOException e) {
+            logger.error("Error flushing terminal index: {}", indexFile.getPath(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        } catch (IOException e) {
+            logger.error("Error closing terminal index: {}", indexFile.getPath(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Sighting> find(KeyType type, long key) {
+        if (key == 0) {
+            return List.of();
+        }
+        if (!loaded) {
+            lock.writeLock().lock();
+            try {
+                ensureLoaded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            // The chain arrays are re-allocated on growth, so resolve them under the lock
+            LongIntHashMap heads = switch (type) {
+                case TID -> tidHead;
+                case MID -> midHead;
+                case SERIAL -> serialHead;
+            };
+            int[] next = switch (type) {
+                case TID -> nextByTid;
+                case MID -> nextByMid;
+                case SERIAL -> nextBySerial;
+            };
+            List<Sighting> result = new ArrayList<>();
+            for (int i = heads.get(key, NONE); i != NONE; i = next[i]) {
+                result.add(toSighting(i));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Status worse(Status current, Status candidate) {
+        return candidate.ordinal() > current.ordinal() ? candidate : current;
+    }
+
+    private Sighting toSighting(int i) {
+        return new Sighting(folders.get(folderOf[i]), fileNames[i],
+                decodeKey(tids[i]), decodeKey(mids[i]), decodeKey(serials[i]), seenAt[i]);
+    }
+
+    private int internFolder(String folder) {
+        Integer id = folderIds.get(folder);
+        if (id == null) {
+            id = folders.size();
+            folders.add(folder);
+            folderIds.put(folder, id);
+        }
+        return id;
+    }
+
+    private void append(long tid, long mid, long serial, long time, int folderId, String fileName) {
+        if (count == tids.length) {
+            grow();
+        }
+        int i = count++;
+        tids[i] = tid;
+        mids[i] = mid;
+        serials[i] = serial;
+        seenAt[i] = time;
+        folderOf[i] = folderId;
+        fileNames[i] = fileName;
+        nextByTid[i] = tid != 0 ? tidHead.put(tid, i, NONE) : NONE;
+        nextByMid[i] = mid != 0 ? midHead.put(mid, i, NONE) : NONE;
+        nextBySerial[i] = serial != 0 ? serialHead.put(serial, i, NONE) : NONE;
+    }
+
+    private void grow() {
+        int capacity = tids.length << 1;
+        tids = Arrays.copyOf(tids, capacity);
+        mids = Arrays.copyOf(mids, capacity);
+        serials = Arrays.copyOf(serials, capacity);
+        seenAt = Arrays.copyOf(seenAt, capacity);
+        folderOf = Arrays.copyOf(folderOf, capacity);
+        fileNames = Arrays.copyOf(fileNames, capacity);
+        nextByTid = Arrays.copyOf(nextByTid, capacity);
+        nextByMid = Arrays.copyOf(nextByMid, capacity);
+        nextBySerial = Arrays.copyOf(nextBySerial, capacity);
+    }
+
+    private void rememberKeyText(long key, String text) {
+        if ((key & HASHED_KEY_FLAG) != 0 && !hashedKeyText.containsKey(key)) {
+            hashedKeyText.put(key, text.trim());
+            if (readOnly) {
+                return;
+            }
+            try {
+                openJournal();
+                journal.writeByte(RECORD_KEY_TEXT);
+                journal.writeLong(key);
+                journal.writeUTF(text.trim());
+            } catch (IOException e) {
+                logger.error("Error writing terminal index: {}", indexFile.getPath(), e);
+            }
+        }
+    }
+
+    private void writeEntry(long tid, long mid, long serial, long time, String folder, String fileName) {
+        if (readOnly) {
+            return;
+        }
+        try {
+            openJournal();
+            journal.writeByte(RECORD_ENTRY);
+            journal.writeLong(tid);
+            journal.writeLong(mid);
+            journal.writeLong(serial);
+            journal.writeLong(time);
+            journal.writeUTF(folder);
+            journal.writeUTF(fileName);
+        } catch (IOException e) {
+            logger.error("Error writing terminal index: {}", indexFile.getPath(), e);
+        }
+    }
+
+    private void openJournal() throws IOException {
+        if (journal != null) {
+            return;
+        }
+        File parent = indexFile.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create index directory: " + parent.getPath());
+        }
+        boolean fresh = !indexFile.exists() || indexFile.length() == 0;
+        journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true), 1 << 16));
+        if (fresh) {
+            journal.writeInt(MAGIC);
+            journal.writeInt(VERSION);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!indexFile.exists() || indexFile.length() == 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long validLength = 0;
+        boolean foreign = false;
+        try (CountingInputStream counter = new CountingInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile), 1 << 16));
+             DataInputStream in = new DataInputStream(counter)) {
+            foreign = in.readInt() != MAGIC || in.readInt() != VERSION;
+            if (foreign) {
+                logger.error("Unrecognized terminal index format: {}", indexFile.getPath());
+                return;
+            }
+            validLength = counter.count;
+            while (true) {
+                int type = in.read();
+                if (type == -1) {
+                    break;
+                }
+                if (type == RECORD_ENTRY) {
+                    long tid = in.readLong();
+                    long mid = in.readLong();
+                    long serial = in.readLong();
+                    long time = in.readLong();
+                    int folderId = internFolder(in.readUTF());
+                    append(tid, mid, serial, time, folderId, in.readUTF());
+                } else if (type == RECORD_KEY_TEXT) {
+                    hashedKeyText.put(in.readLong(), in.readUTF());
+                } else {
+                    throw new EOFException("Unknown record type " + type);
+                }
+                validLength = counter.count;
+            }
+        } catch (EOFException e) {
+            // A crash mid-write leaves a partial record; drop it so later appends stay readable
+            logger.warn("Truncating damaged tail of terminal index at byte {}: {}", validLength, indexFile.getPath());
+            truncate(validLength);
+        } catch (IOException e) {
+            logger.error("Error loading terminal index: {}", indexFile.getPath(), e);
+        } finally {
+            if (foreign) {
+                setAside();
+            }
+        }
+        logger.info("Loaded {} terminal index records in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Moves a file this version cannot read out of the way so a fresh journal never gets
+     * appended to it; if the move fails the index stays in memory only.
+     */
+    private void setAside() {
+        File aside = new File(indexFile.getPath() + ".unreadable-" + System.currentTimeMillis());
+        if (indexFile.renameTo(aside)) {
+            logger.warn("Moved unrecognized terminal index to {}", aside.getPath());
+        } else {
+            readOnly = true;
+            logger.error("Cannot move unrecognized terminal index aside, not writing to it: {}", indexFile.getPath());
+        }
+    }
+
+    private void truncate(long length) {
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        } catch (IOException e) {
+            logger.error("Error truncating terminal index: {}", indexFile.getPath(), e);
+        }
+    }
+
+    /**
+     * Packs an identifier into a non-zero long. Digit strings (optionally behind one letter,
+     * like the "F" serial prefix) are stored exactly so they can be decoded with leading zeros;
+     * anything else falls back to a 64-bit hash flagged by the sign bit. Returns 0 for blanks.
+     */
+    static long encodeKey(String value) {
+        if (value == null) {
+            return 0;
+        }
+        String text = value.replace(" ", "").trim();
+        if (text.isEmpty() || text.equals("null")) {
+            return 0;
+        }
+
+        int start = 0;
+        long letter = 0;
+        char first = text.charAt(0);
+        if (first >= 'A' && first <= 'Z' && text.length() > 1) {
+            letter = first - 'A' + 1;
+            start = 1;
+        }
+        int digits = text.length() - start;
+        if (digits <= MAX_NUMERIC_DIGITS) {
+            long number = 0;
+            boolean numeric = true;
+            for (int i = start; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    numeric = false;
+                    break;
+                }
+                number = number * 10 + (c - '0');
+            }
+            if (numeric) {
+                return (letter << LETTER_SHIFT) | ((long) digits << LENGTH_SHIFT) | number;
+            }
+        }
+
+        long hash = 0xcbf29ce484222325L; // FNV-1a
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash | HASHED_KEY_FLAG;
+    }
+
+    private String decodeKey(long key) {
+        if (key == 0) {
+            return null;
+        }
+        if ((key & HASHED_KEY_FLAG) != 0) {
+            return hashedKeyText.get(key);
+        }
+        int letter = (int) (key >>> LETTER_SHIFT);
+        int digits = (int) ((key >>> LENGTH_SHIFT) & 0xF);
+        StringBuilder text = new StringBuilder(digits + 1);
+        if (letter != 0) {
+            text.append((char) ('A' + letter - 1));
+        }
+        String number = Long.toString(key & VALUE_MASK);
+        for (int i = number.length(); i < digits; i++) {
+            text.append('0');
+        }
+        return text.append(number).toString();
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
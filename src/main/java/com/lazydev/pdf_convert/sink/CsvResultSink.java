@@ -0,0 +1,99 @@
+package com.lazydev.pdf_convert.sink;
+
+import com.lazydev.pdf_convert.model.DataEntry;
+import com.lazydev.pdf_convert.service.ExcelService;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * {@code <folder>.csv} with the workbook's columns (RFC 4180 quoting, CRLF). New files start with
+ * a UTF-8 BOM so Excel reads the Vietnamese text correctly.
+ */
+public class CsvResultSink implements ResultSink {
+    public static final String EXTENSION = ".csv";
+    private static final int BUFFER_CHARS = 64 << 10;
+
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(512);
+    private final int columns;
+
+    public CsvResultSink(File file, boolean append) throws IOException {
+        boolean newFile = !append || !file.exists() || file.length() == 0;
+        OutputStream output = Files.newOutputStream(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, newFile ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+        writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_CHARS);
+        List<String> headers = ExcelService.headers();
+        columns = headers.size();
+        if (newFile) {
+            writer.write('\uFEFF');
+            for (int i = 0; i < columns; i++) {
+                appendValue(i, headers.get(i));
+            }
+            writeLine();
+        }
+    }
+
+    public static Factory factory() {
+        return (folder, append) -> new CsvResultSink(new File(folder, folder.getName() + EXTENSION), append);
+    }
+
+    @Override
+    public String name() {
+        return "CSV";
+    }
+
+    @Override
+    public void accept(DataEntry entry) throws IOException {
+        for (int i = 0; i < columns; i++) {
+            appendValue(i, ExcelService.columnValue(entry.data(), entry.fileName(), i));
+        }
+        writeLine();
+    }
+
+    private void appendValue(int column, String value) {
+        if (column > 0) {
+            line.append(',');
+        }
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void writeLine() throws IOException {
+        line.append("\r\n");
+        writer.append(line);
+        line.setLength(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
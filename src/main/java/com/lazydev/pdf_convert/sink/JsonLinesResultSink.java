@@ -0,0 +1,56 @@
+package com.lazydev.pdf_convert.sink;
+
+import com.lazydev.pdf_convert.model.DataEntry;
+import com.lazydev.pdf_convert.util.JsonUtil;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@code <folder>.jsonl}: one object per record, {@code {"fileName":..., "data":{...}}}, with the
+ * same field names as the HTTP mode.
+ */
+public class JsonLinesResultSink implements ResultSink {
+    public static final String EXTENSION = ".jsonl";
+    private static final int BUFFER_CHARS = 64 << 10;
+
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(512);
+
+    public JsonLinesResultSink(File file, boolean append) throws IOException {
+        OutputStream output = Files.newOutputStream(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_CHARS);
+    }
+
+    public static Factory factory() {
+        return (folder, append) -> new JsonLinesResultSink(new File(folder, folder.getName() + EXTENSION), append);
+    }
+
+    @Override
+    public String name() {
+        return "JSONL";
+    }
+
+    @Override
+    public void accept(DataEntry entry) throws IOException {
+        line.append('{');
+        JsonUtil.appendField(line, "fileName", entry.fileName()).append(",\"data\":");
+        JsonUtil.appendPDFData(line, entry.data());
+        line.append("}\n");
+        writer.append(line);
+        line.setLength(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
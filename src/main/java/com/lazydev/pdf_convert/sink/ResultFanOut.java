@@ -0,0 +1,171 @@
+package com.lazydev.pdf_convert.sink;
+
+import com.lazydev.pdf_convert.model.DataEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Sends every record to several sinks at once. Each sink gets its own bounded queue and writer
+ * thread, so a slow format only delays the extraction when its queue is full (backpressure), and
+ * adding a format costs the extraction nothing but a queue insert.
+ * <p>
+ * A sink that fails stops writing but keeps draining its queue, so the producer never blocks on
+ * it; the first failure of each sink is reported by {@link #close()}.
+ */
+public class ResultFanOut implements ResultSink {
+    private static final Logger logger = LoggerFactory.getLogger(ResultFanOut.class);
+
+    private static final int QUEUE_CAPACITY = 256;
+    private static final DataEntry END = new DataEntry(null, null);
+
+    private final List<Lane> lanes = new ArrayList<>();
+
+    private static final class Lane implements Runnable {
+        final ResultSink sink;
+        final BlockingQueue<DataEntry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final Thread thread;
+        volatile Exception failure;
+        volatile Exception closeFailure;
+
+        Lane(ResultSink sink, String label) {
+            this.sink = sink;
+            this.thread = new Thread(this, "ResultSink-" + sink.name() + "-" + label);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                DataEntry entry;
+                while ((entry = queue.take()) != END) {
+                    if (failure == null) {
+                        try {
+                            sink.accept(entry);
+                        } catch (Exception e) {
+                            failure = e;
+                            logger.error("Error writing {} output, the rest of its records are dropped", sink.name(), e);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Closing finishes the output (the XLSX is built here), in parallel with the other sinks
+            try {
+                sink.close();
+            } catch (Exception e) {
+                closeFailure = e;
+            }
+        }
+    }
+
+    /**
+     * @param label names the writer threads, e.g. the folder name
+     */
+    public ResultFanOut(List<ResultSink> sinks, String label) {
+        for (ResultSink sink : sinks) {
+            lanes.add(new Lane(sink, label));
+        }
+        lanes.forEach(lane -> lane.thread.start());
+    }
+
+    /**
+     * Opens one sink per factory; sinks opened before a failure are closed again.
+     */
+    public static ResultFanOut open(List<ResultSink.Factory> factories, File folder, boolean append)
+            throws IOException {
+        List<ResultSink> sinks = new ArrayList<>();
+        try {
+            for (ResultSink.Factory factory : factories) {
+                sinks.add(factory.open(folder, append));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (ResultSink sink : sinks) {
+                try {
+                    sink.close();
+                } catch (IOException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+            }
+            throw e;
+        }
+        return new ResultFanOut(sinks, folder.getName());
+    }
+
+    @Override
+    public String name() {
+        return "FanOut";
+    }
+
+    /**
+     * Blocks while any sink's queue is full.
+     */
+    @Override
+    public void accept(DataEntry entry) throws IOException {
+        for (Lane lane : lanes) {
+            put(lane, entry);
+        }
+    }
+
+    private static void put(Lane lane, DataEntry entry) throws InterruptedIOException {
+        try {
+            lane.queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while queueing " + lane.sink.name() + " output");
+        }
+    }
+
+    /**
+     * Waits for every sink to write its queued records and finish its output.
+     *
+     * @throws IOException with the first failure, the others attached as suppressed
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Lane lane : lanes) {
+            try {
+                put(lane, END);
+            } catch (InterruptedIOException e) {
+                // The lane is left running; its thread is a daemon
+                failure = addFailure(failure, lane, e);
+            }
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = addFailure(failure, lane, e);
+                continue;
+            }
+            if (lane.failure != null) {
+                failure = addFailure(failure, lane, lane.failure);
+            }
+            if (lane.closeFailure != null) {
+                failure = addFailure(failure, lane, lane.closeFailure);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static IOException addFailure(IOException failure, Lane lane, Exception cause) {
+        IOException wrapped = new IOException("Lỗi ghi file " + lane.sink.name() + ": " + cause.getMessage(), cause);
+        if (failure == null) {
+            return wrapped;
+        }
+        failure.addSuppressed(wrapped);
+        return failure;
+    }
+}
@@ -0,0 +1,29 @@
+package com.lazydev.pdf_convert.sink;
+
+import com.lazydev.pdf_convert.model.DataEntry;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * One output format for the records extracted from a folder. A sink sees the records in
+ * extraction order from a single thread and finishes its output in {@link #close()}.
+ */
+public interface ResultSink extends AutoCloseable {
+
+    String name();
+
+    void accept(DataEntry entry) throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Opens a sink for a folder's output. {@code append} is set by incremental runs, which only
+     * pass the records of new PDFs.
+     */
+    @FunctionalInterface
+    interface Factory {
+        ResultSink open(File folder, boolean append) throws IOException;
+    }
+}
@@ -0,0 +1,54 @@
+package com.lazydev.pdf_convert.sink;
+
+import com.lazydev.pdf_convert.model.DataEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The combined {@code <folder>.txt}: the record of what was converted, read back by incremental
+ * runs, the TXT importer and the sharded merge. Flushed after every record so a crash loses at
+ * most the record being written.
+ */
+public class TxtResultSink implements ResultSink {
+    public static final String FILE_MARKER = "File: ";
+    public static final String EXTENSION = ".txt";
+
+    private final Writer writer;
+
+    public TxtResultSink(File file, boolean append) throws IOException {
+        writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public static Factory factory() {
+        return (folder, append) -> new TxtResultSink(new File(folder, folder.getName() + EXTENSION), append);
+    }
+
+    @Override
+    public String name() {
+        return "TXT";
+    }
+
+    @Override
+    public void accept(DataEntry entry) throws IOException {
+        writeRecord(writer, entry.fileName(), entry.data().toString());
+    }
+
+    public static void writeRecord(Writer writer, String fileName, String data) throws IOException {
+        writer.write(FILE_MARKER + fileName + "\n");
+        writer.write(data);
+        writer.write("\n\n");
+        writer.write("----------------------------------------------------------------\n");
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
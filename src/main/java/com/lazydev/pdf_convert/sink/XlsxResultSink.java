@@ -0,0 +1,51 @@
+package com.lazydev.pdf_convert.sink;
+
+import com.lazydev.pdf_convert.model.DataEntry;
+import com.lazydev.pdf_convert.service.ExcelService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code <folder>.xlsx}, built from the records as they are extracted instead of re-reading the
+ * TXT afterwards. The workbook needs every row (column widths, split policy), so it is written in
+ * {@link #close()}. Full runs only: an incremental run would only see the new records.
+ */
+public class XlsxResultSink implements ResultSink {
+    public static final String EXTENSION = ".xlsx";
+
+    private final ExcelService excelService;
+    private final File file;
+    private final List<DataEntry> entries = new ArrayList<>();
+
+    public XlsxResultSink(ExcelService excelService, File file) {
+        this.excelService = excelService;
+        this.file = file;
+    }
+
+    public static Factory factory(ExcelService excelService) {
+        return (folder, append) -> {
+            if (append) {
+                throw new IllegalArgumentException("XLSX sink does not support incremental runs");
+            }
+            return new XlsxResultSink(excelService, new File(folder, folder.getName() + EXTENSION));
+        };
+    }
+
+    @Override
+    public String name() {
+        return "XLSX";
+    }
+
+    @Override
+    public void accept(DataEntry entry) {
+        entries.add(entry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        excelService.writeExcelFile(entries, file.getPath());
+    }
+}
@@ -0,0 +1,56 @@
+package com.lazydev.pdf_convert.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Releases file mappings right away instead of when the GC gets to the buffer. Until then the
+ * mapping keeps the file open, and on Windows a mapped file can be neither rewritten nor deleted.
+ * <p>
+ * The JDK has no public unmap, so this is the one place that uses {@code sun.misc.Unsafe}
+ * ({@code jdk.unsupported}), looked up reflectively so the rest of the build stays free of
+ * internal-API warnings. Without it mappings are left to the GC.
+ */
+public final class BufferUnmapper {
+    private static final Logger logger = LoggerFactory.getLogger(BufferUnmapper.class);
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    private BufferUnmapper() {
+    }
+
+    /**
+     * Unmaps the buffer. It must not be touched afterwards, by any thread: reading an unmapped
+     * page crashes the JVM.
+     */
+    public static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable e) {
+            logger.warn("Cannot unmap buffer, leaving it to the GC", e);
+        }
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("sun.misc.Unsafe unavailable, mapped files are released by the GC", e);
+            return null;
+        }
+    }
+}
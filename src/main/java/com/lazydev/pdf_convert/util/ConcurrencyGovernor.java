@@ -0,0 +1,284 @@
+package com.lazydev.pdf_convert.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how many files are extracted at once and adjusts the limit at run time.
+ * <p>
+ * The worker pools are sized for {@link #maxWorkers()}; each file holds one permit while it is
+ * parsed. Every {@value #SAMPLE_INTERVAL_MILLIS} ms a sampler looks at heap occupancy outside eden,
+ * the share of time spent in GC and the files completed per second:
+ * <ul>
+ *     <li>under memory pressure the limit drops by a quarter, whatever the throughput;</li>
+ *     <li>otherwise, while files are waiting for a permit, it probes one more permit, keeps
+ *     climbing as long as throughput improves and steps back when it gets worse;</li>
+ *     <li>when no file is waiting the limit is left alone.</li>
+ * </ul>
+ * The shared instance is configured with the system properties {@code pdfconvert.workers.min},
+ * {@code pdfconvert.workers.max} and {@code pdfconvert.workers.adaptive} ({@code false} keeps the
+ * initial limit, the processor count).
+ */
+public class ConcurrencyGovernor {
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyGovernor.class);
+
+    static final long SAMPLE_INTERVAL_MILLIS = 2_000;
+    // Fewer completions than this in a window is too noisy to compare, so the window is extended
+    private static final int MIN_WINDOW_FILES = 8;
+    private static final int MAX_WINDOW_INTERVALS = 5;
+    private static final double HIGH_HEAP = 0.85;
+    private static final double HIGH_GC = 0.25;
+    private static final double GROW_HEAP = 0.70;
+    private static final double GROW_GC = 0.10;
+    private static final double SIGNIFICANT_CHANGE = 0.05;
+    private static final int COOLDOWN_WINDOWS = 3;
+
+    public enum Decision { START, GROW, KEEP_GROWING, PLATEAU, REVERT, SHRINK_MEMORY, IDLE, COOLDOWN }
+
+    public record Snapshot(int limit, int minPermits, int maxPermits, int active, int waiting,
+                           double heapOccupancy, double gcTimeShare, double filesPerSecond,
+                           Decision lastDecision, long grown, long shrunk, long completed) { }
+
+    private static class Holder {
+        static final ConcurrencyGovernor INSTANCE = new ConcurrencyGovernor(
+                Integer.getInteger("pdfconvert.workers.min", 1),
+                Runtime.getRuntime().availableProcessors(),
+                maxWorkers(),
+                Boolean.parseBoolean(System.getProperty("pdfconvert.workers.adaptive", "true")));
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+    private final int minPermits;
+    private final int maxPermits;
+    private final boolean adaptive;
+    private final ResizableSemaphore permits;
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+    private volatile ScheduledExecutorService sampler;
+
+    // Sampler state, only touched on the sampler thread
+    private int limit;
+    private long windowStart;
+    private long windowCompleted;
+    private long windowGcMillis;
+    private int windowIntervals;
+    private double previousRate = -1;
+    private Decision previousAction = Decision.START;
+    private int cooldown;
+    private long grown;
+    private long shrunk;
+
+    private volatile Snapshot snapshot;
+
+    public ConcurrencyGovernor(int minPermits, int initialPermits, int maxPermits, boolean adaptive) {
+        this.minPermits = Math.max(1, minPermits);
+        this.maxPermits = Math.max(this.minPermits, maxPermits);
+        this.limit = Math.max(this.minPermits, Math.min(initialPermits, this.maxPermits));
+        this.adaptive = adaptive;
+        this.permits = new ResizableSemaphore(limit);
+        this.snapshot = new Snapshot(limit, this.minPermits, this.maxPermits, 0, 0, 0, 0, 0,
+                Decision.START, 0, 0, 0);
+    }
+
+    public static ConcurrencyGovernor get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Upper bound of the limit; worker pools that feed the governor are created with this many
+     * threads. Does not create the shared instance.
+     */
+    public static int maxWorkers() {
+        return Integer.getInteger("pdfconvert.workers.max", 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Waits for a permit. Every successful call must be paired with {@link #release()}.
+     */
+    public void acquire() throws InterruptedException {
+        if (sampler == null && adaptive) {
+            startSampler();
+        }
+        permits.acquire();
+        active.incrementAndGet();
+    }
+
+    public void release() {
+        active.decrementAndGet();
+        completed.increment();
+        permits.release();
+    }
+
+    public Snapshot snapshot() {
+        Snapshot last = snapshot;
+        return new Snapshot(last.limit(), minPermits, maxPermits, active.get(), permits.getQueueLength(),
+                last.heapOccupancy(), last.gcTimeShare(), last.filesPerSecond(), last.lastDecision(),
+                last.grown(), last.shrunk(), completed.sum());
+    }
+
+    public void appendJson(StringBuilder json) {
+        Snapshot current = snapshot();
+        json.append('{');
+        JsonUtil.appendField(json, "limit", current.limit()).append(',');
+        JsonUtil.appendField(json, "minPermits", current.minPermits()).append(',');
+        JsonUtil.appendField(json, "maxPermits", current.maxPermits()).append(',');
+        JsonUtil.appendField(json, "active", current.active()).append(',');
+        JsonUtil.appendField(json, "waiting", current.waiting()).append(',');
+        JsonUtil.appendField(json, "heapPercent", Math.round(current.heapOccupancy() * 100)).append(',');
+        JsonUtil.appendField(json, "gcPercent", Math.round(current.gcTimeShare() * 100)).append(',');
+        JsonUtil.appendField(json, "filesPerMinute", Math.round(current.filesPerSecond() * 60)).append(',');
+        JsonUtil.appendField(json, "lastDecision", current.lastDecision().name()).append(',');
+        JsonUtil.appendField(json, "grown", current.grown()).append(',');
+        JsonUtil.appendField(json, "shrunk", current.shrunk()).append(',');
+        JsonUtil.appendField(json, "completed", current.completed());
+        json.append('}');
+    }
+
+    private synchronized void startSampler() {
+        if (sampler != null) {
+            return;
+        }
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ConcurrencyGovernor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        windowStart = System.nanoTime();
+        windowGcMillis = gcMillis();
+        sampler.scheduleWithFixedDelay(this::sample, SAMPLE_INTERVAL_MILLIS, SAMPLE_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        this.sampler = sampler;
+    }
+
+    private void sample() {
+        try {
+            windowIntervals++;
+            long files = completed.sum() - windowCompleted;
+            if (files < MIN_WINDOW_FILES && windowIntervals < MAX_WINDOW_INTERVALS) {
+                return;
+            }
+            long now = System.nanoTime();
+            long gcMillis = gcMillis();
+            double seconds = (now - windowStart) / 1e9;
+            double rate = files / seconds;
+            double gcShare = Math.min(1, (gcMillis - windowGcMillis) / (seconds * 1000));
+            double heap = heapOccupancy();
+            boolean saturated = permits.hasQueuedThreads();
+
+            Decision decision = decide(rate, heap, gcShare, saturated);
+            snapshot = new Snapshot(limit, minPermits, maxPermits, active.get(), permits.getQueueLength(),
+                    heap, gcShare, rate, decision, grown, shrunk, completed.sum());
+
+            windowStart = now;
+            windowCompleted += files;
+            windowGcMillis = gcMillis;
+            windowIntervals = 0;
+        } catch (RuntimeException e) {
+            logger.warn("Concurrency sample failed", e);
+        }
+    }
+
+    private Decision decide(double rate, double heap, double gcShare, boolean saturated) {
+        Decision decision;
+        if ((heap > HIGH_HEAP || gcShare > HIGH_GC) && limit > minPermits) {
+            resize(limit - Math.max(1, limit / 4));
+            cooldown = COOLDOWN_WINDOWS;
+            decision = Decision.SHRINK_MEMORY;
+        } else if (!saturated && previousAction != Decision.GROW && previousAction != Decision.KEEP_GROWING) {
+            decision = Decision.IDLE;
+        } else if (previousAction == Decision.GROW || previousAction == Decision.KEEP_GROWING) {
+            if (rate < previousRate * (1 - SIGNIFICANT_CHANGE)) {
+                resize(limit - 1);
+                cooldown = COOLDOWN_WINDOWS;
+                decision = Decision.REVERT;
+            } else if (rate > previousRate * (1 + SIGNIFICANT_CHANGE) && saturated && canGrow(heap, gcShare)) {
+                resize(limit + 1);
+                decision = Decision.KEEP_GROWING;
+            } else {
+                cooldown = COOLDOWN_WINDOWS;
+                decision = Decision.PLATEAU;
+            }
+        } else if (cooldown > 0) {
+            cooldown--;
+            decision = Decision.COOLDOWN;
+        } else if (canGrow(heap, gcShare)) {
+            resize(limit + 1);
+            decision = Decision.GROW;
+        } else {
+            decision = Decision.PLATEAU;
+        }
+        previousRate = rate;
+        previousAction = decision;
+        return decision;
+    }
+
+    private boolean canGrow(double heap, double gcShare) {
+        return limit < maxPermits && heap < GROW_HEAP && gcShare < GROW_GC;
+    }
+
+    private void resize(int newLimit) {
+        newLimit = Math.max(minPermits, Math.min(maxPermits, newLimit));
+        if (newLimit > limit) {
+            permits.release(newLimit - limit);
+            grown++;
+        } else if (newLimit < limit) {
+            // Files already running finish; the permits they return are absorbed by the reduction
+            permits.reducePermits(limit - newLimit);
+            shrunk++;
+        } else {
+            return;
+        }
+        logger.info("Concurrency limit {} -> {} (active {}, waiting {})",
+                limit, newLimit, active.get(), permits.getQueueLength());
+        limit = newLimit;
+    }
+
+    private long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Heap in use outside the young generation's eden (which is mostly garbage waiting for the
+     * next young collection) as a share of the maximum heap. Old-generation "usage after GC" is
+     * not used: G1 only updates it after mixed or full collections.
+     */
+    private double heapOccupancy() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            if (!pool.getName().contains("Eden")) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return (double) used / Runtime.getRuntime().maxMemory();
+    }
+}
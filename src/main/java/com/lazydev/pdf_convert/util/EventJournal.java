@@ -0,0 +1,306 @@
+package com.lazydev.pdf_convert.util;
+
+import com.lazydev.pdf_convert.exception.PDFProcessingException.FailureCategory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Non-blocking structured journal for per-file events (one JSON object per line).
+ * <p>
+ * Workers copy a few references and numbers into a preallocated slot of a bounded lock-free
+ * ring; all formatting and I/O happen on a single background writer thread. When the ring is
+ * full, {@link OverflowPolicy#DROP} discards the event and counts it, {@link OverflowPolicy#BLOCK}
+ * makes the worker wait for a free slot.
+ * <p>
+ * The shared instance is configured with the system properties {@code pdfconvert.journal.file}
+ * (default {@value #DEFAULT_FILE}), {@code pdfconvert.journal.capacity} and
+ * {@code pdfconvert.journal.policy}.
+ */
+public class EventJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(EventJournal.class);
+
+    public static final String DEFAULT_FILE = "pdf-converter-events.jsonl";
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int WRITE_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    public enum Stage {
+        PRESCAN,
+        EXTRACT,
+        WRITE,
+        INDEX,
+        FOLDER
+    }
+
+    public enum Outcome {
+        OK,
+        NO_DATA,
+        REJECTED,
+        FAILED,
+        DUPLICATE,
+        CONFLICT
+    }
+
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+
+    private static final class Slot {
+        long epochMillis;
+        Stage stage;
+        Outcome outcome;
+        String folder;
+        String file;
+        long durationNanos;
+        FailureCategory category;
+        String message;
+    }
+
+    private static class Holder {
+        static final EventJournal INSTANCE = createShared();
+    }
+
+    private final Slot[] slots;
+    // Vyukov bounded queue: slot i is free for position p when sequences[i] == p,
+    // and holds the event for position p when sequences[i] == p + 1
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // writer thread only
+
+    private final OverflowPolicy policy;
+    private final Path file;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private volatile boolean running = true;
+    private final Thread writerThread;
+
+    public EventJournal(Path file, int capacity, OverflowPolicy policy) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Slot[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.policy = policy;
+        this.file = file;
+
+        writerThread = new Thread(this::writeLoop, "EventJournal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public static EventJournal get() {
+        return Holder.INSTANCE;
+    }
+
+    private static EventJournal createShared() {
+        Path file = Path.of(System.getProperty("pdfconvert.journal.file", DEFAULT_FILE));
+        int capacity = Integer.getInteger("pdfconvert.journal.capacity", DEFAULT_CAPACITY);
+        OverflowPolicy policy = OverflowPolicy.valueOf(
+                System.getProperty("pdfconvert.journal.policy", OverflowPolicy.DROP.name()));
+        EventJournal journal = new EventJournal(file, capacity, policy);
+        Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "EventJournal-shutdown"));
+        return journal;
+    }
+
+    public void record(Stage stage, Outcome outcome, String folder, String file, long durationNanos) {
+        record(stage, outcome, folder, file, durationNanos, null, null);
+    }
+
+    /**
+     * Queues one event. Never formats or performs I/O on the calling thread.
+     *
+     * @return false when the event was dropped
+     */
+    public boolean record(Stage stage, Outcome outcome, String folder, String file, long durationNanos,
+                          FailureCategory category, String message) {
+        long position = claim();
+        if (position < 0) {
+            dropped.increment();
+            return false;
+        }
+        int index = (int) position & mask;
+        Slot slot = slots[index];
+        slot.epochMillis = System.currentTimeMillis();
+        slot.stage = stage;
+        slot.outcome = outcome;
+        slot.folder = folder;
+        slot.file = file;
+        slot.durationNanos = durationNanos;
+        slot.category = category;
+        slot.message = message;
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * @return the claimed position, or -1 when the ring is full and the policy is DROP
+     */
+    private long claim() {
+        long position = tail.get();
+        while (true) {
+            long sequence = sequences.get((int) position & mask);
+            long difference = sequence - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                if (policy == OverflowPolicy.DROP || !running) {
+                    return -1;
+                }
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+                position = tail.get();
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public long writtenCount() {
+        return written.sum();
+    }
+
+    private void writeLoop() {
+        Writer writer = openWriter();
+        StringBuilder line = new StringBuilder(256);
+        long reportedDrops = 0;
+        boolean dirty = false;
+
+        while (true) {
+            int count = 0;
+            while (count < WRITE_BATCH && poll(line)) {
+                count++;
+                if (writer != null) {
+                    try {
+                        writer.append(line);
+                        dirty = true;
+                    } catch (IOException e) {
+                        logger.error("Error writing event journal: {}", file, e);
+                        writer = closeQuietly(writer);
+                    }
+                }
+                written.increment();
+            }
+            if (count > 0) {
+                continue;
+            }
+
+            long drops = dropped.sum();
+            if (drops != reportedDrops) {
+                logger.warn("Event journal full, {} events dropped so far", drops);
+                reportedDrops = drops;
+            }
+            if (dirty && writer != null) {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    logger.error("Error flushing event journal: {}", file, e);
+                    writer = closeQuietly(writer);
+                }
+                dirty = false;
+            }
+            if (!running) {
+                break;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        closeQuietly(writer);
+    }
+
+    private boolean poll(StringBuilder line) {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return false;
+        }
+        Slot slot = slots[index];
+        line.setLength(0);
+        line.append("{\"time\":\"").append(Instant.ofEpochMilli(slot.epochMillis)).append("\",");
+        JsonUtil.appendField(line, "stage", slot.stage.name()).append(',');
+        JsonUtil.appendField(line, "outcome", slot.outcome.name()).append(',');
+        JsonUtil.appendField(line, "folder", slot.folder).append(',');
+        JsonUtil.appendField(line, "file", slot.file).append(',');
+        JsonUtil.appendField(line, "durationMicros", slot.durationNanos / 1_000);
+        if (slot.category != null) {
+            line.append(',');
+            JsonUtil.appendField(line, "category", slot.category.name());
+        }
+        if (slot.message != null) {
+            line.append(',');
+            JsonUtil.appendField(line, "message", slot.message);
+        }
+        line.append("}\n");
+
+        slot.folder = null;
+        slot.file = null;
+        slot.message = null;
+        sequences.lazySet(index, head + mask + 1);
+        head++;
+        return true;
+    }
+
+    private Writer openWriter() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            return Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.error("Error opening event journal, events will be discarded: {}", file, e);
+            return null;
+        }
+    }
+
+    private static Writer closeQuietly(Writer writer) {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logger.debug("Error closing event journal", e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stops accepting blocked producers and waits briefly for the writer to drain the ring.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.lazydev.pdf_convert.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Per-file claims shared by several processes through the filesystem, so they can split the
+ * PDFs of the same folders (on one host or on hosts sharing a mount).
+ * <p>
+ * A claim on {@code folder/x.pdf} is the file {@code folder/.leases/x.pdf.lease}, created with
+ * {@code CREATE_NEW} so exactly one process wins it. Its modification time is the heartbeat: the
+ * owner touches it every third of the TTL, and a lease not touched for a whole TTL belongs to a
+ * dead process and may be taken over. A finished file gets {@code x.pdf.done} holding the owner's
+ * id, which is what the merge step trusts when a file was converted twice.
+ * <p>
+ * Lease times are compared against the local clock, so the TTL must be well above the clock skew
+ * between hosts.
+ */
+public class FileLeases implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(FileLeases.class);
+
+    public static final String LEASE_DIR = ".leases";
+    private static final String LEASE_SUFFIX = ".lease";
+    private static final String DONE_SUFFIX = ".done";
+
+    public enum Claim {
+        CLAIMED,
+        HELD, // by a live process
+        DONE
+    }
+
+    private final String owner;
+    private final Duration ttl;
+    private final Set<Path> held = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService heartbeat;
+
+    public FileLeases(String owner, Duration ttl) {
+        this.owner = owner;
+        this.ttl = ttl;
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "FileLeases-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, ttl.toMillis() / 3);
+        heartbeat.scheduleAtFixedRate(this::renewAll, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Claim tryClaim(File file) throws IOException {
+        Path lease = leasePath(file, LEASE_SUFFIX);
+        Files.createDirectories(lease.getParent());
+        // Second attempt only after removing an expired lease
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (isDone(file)) {
+                return Claim.DONE;
+            }
+            try {
+                Files.write(lease, owner.getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                held.add(lease);
+                // The file may have been finished between the check and the create
+                if (isDone(file)) {
+                    release(file);
+                    return Claim.DONE;
+                }
+                return Claim.CLAIMED;
+            } catch (FileAlreadyExistsException e) {
+                if (!removeIfExpired(lease)) {
+                    return Claim.HELD;
+                }
+            }
+        }
+        return Claim.HELD;
+    }
+
+    /**
+     * Moves the expired lease aside under a name unique to this process: only one contender's
+     * atomic move succeeds, the others see it gone and report the file as held.
+     */
+    private boolean removeIfExpired(Path lease) throws IOException {
+        try {
+            if (!isExpired(Files.getLastModifiedTime(lease))) {
+                return false;
+            }
+            Path stale = lease.resolveSibling(lease.getFileName() + "." + owner + ".stale");
+            Files.move(lease, stale, StandardCopyOption.ATOMIC_MOVE);
+            String previousOwner = Files.readString(stale, StandardCharsets.UTF_8);
+            Files.deleteIfExists(stale);
+            logger.warn("Taking over expired lease {} from {}", lease.getFileName(), previousOwner);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(FileTime lastRenewed) {
+        return System.currentTimeMillis() - lastRenewed.toMillis() > ttl.toMillis();
+    }
+
+    public boolean isDone(File file) {
+        return Files.exists(leasePath(file, DONE_SUFFIX));
+    }
+
+    /**
+     * Marks the file finished by this process and drops the lease.
+     *
+     * @return false when another process finished it first
+     */
+    public boolean complete(File file) throws IOException {
+        boolean won;
+        try {
+            Files.write(leasePath(file, DONE_SUFFIX), owner.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            won = true;
+        } catch (FileAlreadyExistsException e) {
+            won = false;
+        }
+        release(file);
+        return won;
+    }
+
+    public void release(File file) throws IOException {
+        Path lease = leasePath(file, LEASE_SUFFIX);
+        if (held.remove(lease) && isOwnedByUs(lease)) {
+            Files.deleteIfExists(lease);
+        }
+    }
+
+    private boolean isOwnedByUs(Path lease) throws IOException {
+        try {
+            return owner.equals(Files.readString(lease, StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private void renewAll() {
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        for (Path lease : held) {
+            try {
+                Files.setLastModifiedTime(lease, now);
+            } catch (NoSuchFileException e) {
+                if (held.remove(lease)) {
+                    logger.warn("Lease {} was taken over by another process", lease.getFileName());
+                }
+            } catch (IOException e) {
+                logger.error("Error renewing lease: {}", lease, e);
+            }
+        }
+    }
+
+    private static Path leasePath(File file, String suffix) {
+        return file.toPath().resolveSibling(LEASE_DIR).resolve(file.getName() + suffix);
+    }
+
+    /**
+     * @return file name to owner id for every finished file in the folder
+     */
+    public static Map<String, String> completedOwners(File folder) throws IOException {
+        Map<String, String> owners = new HashMap<>();
+        Path leaseDir = folder.toPath().resolve(LEASE_DIR);
+        if (!Files.isDirectory(leaseDir)) {
+            return owners;
+        }
+        try (Stream<Path> paths = Files.list(leaseDir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(DONE_SUFFIX)) {
+                    owners.put(name.substring(0, name.length() - DONE_SUFFIX.length()),
+                            Files.readString(path, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return owners;
+    }
+
+    /**
+     * Removes every lease and completion marker of the folder, so the next sharded run starts over.
+     */
+    public static void clear(File folder) throws IOException {
+        deleteRecursively(folder.toPath().resolve(LEASE_DIR));
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        heartbeat.shutdownNow();
+    }
+}
@@ -0,0 +1,207 @@
+package com.lazydev.pdf_convert.util;
+
+import com.lazydev.pdf_convert.exception.PDFProcessingException;
+import com.lazydev.pdf_convert.exception.PDFProcessingException.FailureCategory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs per-file work on a separate thread and aborts it when it exceeds a time or allocation budget.
+ * <p>
+ * The allocation budget is checked against the bytes the worker thread has allocated since the
+ * file started. That is cumulative allocation, not retained heap: a large but healthy file that
+ * churns through short-lived objects counts the same as one that holds them, so the budget is a
+ * guard against runaway parses rather than a heap limit, and should be set well above what
+ * normal files allocate. Retained heap per file is not something the JVM can attribute to a thread.
+ * <p>
+ * On abort the worker is interrupted and every resource it registered (the PDF source before
+ * parsing, then the {@code PDDocument}) is closed, so PDFBox fails out of its read loop; the
+ * caller gets a typed {@link PDFProcessingException} right away and moves on to the next file
+ * even if the worker takes a while to unwind.
+ */
+public class FileWatchdog {
+    private static final Logger logger = LoggerFactory.getLogger(FileWatchdog.class);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    public interface Guard {
+        void register(Closeable resource);
+    }
+
+    public interface GuardedWork<T> {
+        T run(Guard guard) throws Exception;
+    }
+
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final ExecutorService workers;
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    private volatile Duration timeBudget;
+    private volatile long allocationBudgetBytes;
+
+    /**
+     * @param maxWorkers worker threads; callers beyond that many wait for a worker to finish
+     */
+    public FileWatchdog(Duration timeBudget, long allocationBudgetBytes, int maxWorkers) {
+        this.timeBudget = timeBudget;
+        this.allocationBudgetBytes = allocationBudgetBytes;
+        this.workers = Executors.newFixedThreadPool(maxWorkers, r -> {
+            Thread thread = new Thread(r);
+            thread.setName("PDFFileWorker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+            this.threadBean = sunBean;
+        } else {
+            logger.warn("Per-thread allocation tracking unavailable, allocation budget disabled");
+            this.threadBean = null;
+        }
+    }
+
+    public void setTimeBudget(Duration timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    public void setAllocationBudgetBytes(long allocationBudgetBytes) {
+        this.allocationBudgetBytes = allocationBudgetBytes;
+    }
+
+    public <T> T run(String fileName, GuardedWork<T> work) {
+        return run(fileName, work, () -> { });
+    }
+
+    /**
+     * @param onWorkerExit runs exactly once, when the work has really stopped: on the worker
+     *                     thread after it returns or unwinds, which for an aborted file may be
+     *                     well after this method has thrown, or right away if it never started
+     */
+    public <T> T run(String fileName, GuardedWork<T> work, Runnable onWorkerExit) {
+        GuardedTask<T> task = new GuardedTask<>(work, onWorkerExit);
+        Future<T> future;
+        try {
+            future = workers.submit(task);
+        } catch (RuntimeException e) {
+            task.exit();
+            throw e;
+        }
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+
+        try {
+            while (true) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                try {
+                    return future.get(Math.max(1, Math.min(POLL_INTERVAL_MILLIS, remainingMillis)), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (System.nanoTime() >= deadline) {
+                        abort(future, task);
+                        throw new PDFProcessingException(FailureCategory.TIMEOUT,
+                                "Vượt quá thời gian cho phép (" + timeBudget.toSeconds() + " giây)");
+                    }
+                    long allocated = task.allocatedBytes();
+                    if (allocated > allocationBudgetBytes) {
+                        abort(future, task);
+                        throw new PDFProcessingException(FailureCategory.MEMORY_LIMIT,
+                                "Vượt quá lượng bộ nhớ cấp phát cho phép (" + (allocated >> 20) + " MB)");
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            abort(future, task);
+            Thread.currentThread().interrupt();
+            throw new PDFProcessingException(FailureCategory.CANCELLED, "Đã hủy xử lý " + fileName, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof PDFProcessingException processingException) {
+                throw processingException;
+            }
+            if (cause instanceof OutOfMemoryError) {
+                throw new PDFProcessingException(FailureCategory.MEMORY_LIMIT, "Không đủ bộ nhớ", cause);
+            }
+            if (cause instanceof IOException) {
+                throw new PDFProcessingException(FailureCategory.DAMAGED, String.valueOf(cause.getMessage()), cause);
+            }
+            throw new PDFProcessingException(FailureCategory.UNKNOWN, String.valueOf(cause.getMessage()), cause);
+        }
+    }
+
+    private void abort(Future<?> future, GuardedTask<?> task) {
+        future.cancel(true);
+        if (task.started.compareAndSet(false, true)) {
+            // Cancelled while queued: the worker will never run it
+            task.exit();
+        }
+        for (Closeable resource : task.resources) {
+            try {
+                resource.close();
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Error closing resource of aborted file", e);
+            }
+        }
+    }
+
+    private class GuardedTask<T> implements Callable<T>, Guard {
+        private final GuardedWork<T> work;
+        private final Runnable onWorkerExit;
+        private final List<Closeable> resources = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean exited = new AtomicBoolean();
+        private volatile long threadId = -1;
+        private volatile long allocatedAtStart;
+
+        GuardedTask(GuardedWork<T> work, Runnable onWorkerExit) {
+            this.work = work;
+            this.onWorkerExit = onWorkerExit;
+        }
+
+        @Override
+        public T call() throws Exception {
+            if (!started.compareAndSet(false, true)) {
+                return null;
+            }
+            Thread current = Thread.currentThread();
+            if (threadBean != null) {
+                allocatedAtStart = threadBean.getThreadAllocatedBytes(current.getId());
+            }
+            threadId = current.getId();
+            try {
+                return work.run(this);
+            } finally {
+                threadId = -1;
+                Thread.interrupted(); // don't leak an abort interrupt into the next pooled task
+                exit();
+            }
+        }
+
+        void exit() {
+            if (exited.compareAndSet(false, true)) {
+                onWorkerExit.run();
+            }
+        }
+
+        @Override
+        public void register(Closeable resource) {
+            resources.add(resource);
+        }
+
+        long allocatedBytes() {
+            long id = threadId;
+            if (threadBean == null || id < 0) {
+                return 0;
+            }
+            long allocated = threadBean.getThreadAllocatedBytes(id);
+            return allocated < 0 ? 0 : allocated - allocatedAtStart;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.lazydev.pdf_convert.util;
+
+import com.lazydev.pdf_convert.model.PDFData;
+
+/**
+ * Minimal JSON encoding for the few flat objects the app emits. Kept dependency-free so the
+ * HTTP mode does not pull a JSON library into the JavaFX build.
+ */
+public class JsonUtil {
+
+    private JsonUtil() {
+    }
+
+    public static String toJson(PDFData data) {
+        StringBuilder json = new StringBuilder(512);
+        appendPDFData(json, data);
+        return json.toString();
+    }
+
+    public static void appendPDFData(StringBuilder json, PDFData data) {
+        json.append('{');
+        appendField(json, "groupName", data.getGroupName()).append(',');
+        appendField(json, "businessName", data.getBusinessName()).append(',');
+        appendField(json, "address", data.getAddress()).append(',');
+        appendField(json, "serialNumber", data.getSerialNumber()).append(',');
+        appendField(json, "posDevice", data.getPosDevice()).append(',');
+        appendField(json, "notes", data.getNotes()).append(',');
+        appendField(json, "merchantId", data.getMerchantId()).append(',');
+        appendField(json, "terminalId", data.getTerminalId()).append(',');
+        appendField(json, "terminalId00", data.getTerminalId00()).append(',');
+        appendField(json, "terminalVtopId", data.getTerminalVtopId()).append(',');
+        appendField(json, "posVtop", data.getPosVtop());
+        json.append('}');
+    }
+
+    public static StringBuilder appendField(StringBuilder json, String name, String value) {
+        appendString(json, name).append(':');
+        return appendString(json, value);
+    }
+
+    public static StringBuilder appendField(StringBuilder json, String name, long value) {
+        appendString(json, name).append(':');
+        return json.append(value);
+    }
+
+    public static StringBuilder appendString(StringBuilder json, String value) {
+        if (value == null) {
+            return json.append("null");
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"');
+    }
+}
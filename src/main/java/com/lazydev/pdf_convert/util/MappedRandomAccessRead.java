@@ -0,0 +1,163 @@
+package com.lazydev.pdf_convert.util;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * PDFBox input backed by a read-only memory mapping of the whole file. Reads go straight from
+ * the page cache into PDFBox's arrays, without the heap buffers of the default file access.
+ * <p>
+ * The mapping is only ever unmapped on the thread that opened the file, since that thread may
+ * be in the middle of a read and touching an unmapped page crashes the JVM. {@link #close()} on
+ * that thread unmaps right away, which is how a document is normally closed. A close from any
+ * other thread (the watchdog aborting a file) makes further reads fail and hands the unmap back
+ * to the opening thread, which does it on its next read or its own close while unwinding; if
+ * that thread never touches the source again, the mapping is left to the GC.
+ */
+public final class MappedRandomAccessRead implements RandomAccessRead {
+    private final Thread owner = Thread.currentThread();
+    private final int length;
+    private volatile MappedByteBuffer buffer;
+    // Closed from another thread, waiting for the owner to unmap it
+    private final AtomicReference<MappedByteBuffer> abandoned = new AtomicReference<>();
+
+    private MappedRandomAccessRead(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.length = buffer.capacity();
+    }
+
+    /**
+     * @throws IOException when the file cannot be mapped: larger than 2 GB, or on a filesystem
+     *                     without mapping support
+     */
+    public static MappedRandomAccessRead map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large to map: " + file.getName());
+            }
+            // The mapping stays valid after the channel is closed
+            return new MappedRandomAccessRead(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (UnsupportedOperationException e) {
+            throw new IOException("Mapping not supported for " + file.getName(), e);
+        }
+    }
+
+    private MappedByteBuffer buffer() throws IOException {
+        MappedByteBuffer current = buffer;
+        if (current == null) {
+            unmapAbandoned();
+            throw new IOException("RandomAccessRead already closed");
+        }
+        return current;
+    }
+
+    @Override
+    public int read() throws IOException {
+        MappedByteBuffer current = buffer();
+        return current.hasRemaining() ? current.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) throws IOException {
+        MappedByteBuffer current = buffer();
+        if (!current.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, current.remaining());
+        current.get(b, offset, count);
+        return count;
+    }
+
+    @Override
+    public long getPosition() throws IOException {
+        return buffer().position();
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        if (position < 0) {
+            throw new IOException("Invalid position " + position);
+        }
+        buffer().position((int) Math.min(position, length));
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return buffer == null;
+    }
+
+    @Override
+    public int peek() throws IOException {
+        MappedByteBuffer current = buffer();
+        return current.hasRemaining() ? current.get(current.position()) & 0xFF : -1;
+    }
+
+    @Override
+    public void rewind(int bytes) throws IOException {
+        seek(getPosition() - bytes);
+    }
+
+    @Override
+    public byte[] readFully(int length) throws IOException {
+        MappedByteBuffer current = buffer();
+        if (current.remaining() < length) {
+            throw new EOFException("Premature end of file");
+        }
+        byte[] bytes = new byte[length];
+        current.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException {
+        return !buffer().hasRemaining();
+    }
+
+    @Override
+    public int available() throws IOException {
+        return buffer().remaining();
+    }
+
+    @Override
+    public void close() {
+        MappedByteBuffer current = buffer;
+        if (current == null) {
+            unmapAbandoned();
+            return;
+        }
+        if (Thread.currentThread() == owner) {
+            buffer = null;
+            BufferUnmapper.unmap(current);
+        } else {
+            abandoned.set(current);
+            buffer = null;
+        }
+    }
+
+    private void unmapAbandoned() {
+        if (Thread.currentThread() == owner) {
+            MappedByteBuffer pending = abandoned.getAndSet(null);
+            if (pending != null) {
+                BufferUnmapper.unmap(pending);
+            }
+        }
+    }
+}
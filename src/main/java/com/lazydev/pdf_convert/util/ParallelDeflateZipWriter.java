@@ -0,0 +1,355 @@
+package com.lazydev.pdf_convert.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Minimal ZIP writer whose entries are deflated on several cores.
+ * <p>
+ * An entry's data is cut into {@value #CHUNK_SIZE}-byte chunks that are deflated concurrently,
+ * each primed with the last 32 KB of the previous chunk as dictionary and ended with a sync
+ * flush, so the compressed chunks joined in order form one standard deflate stream (the pigz
+ * technique). The CRC is computed serially as chunks are produced. Level 0 stores entries
+ * uncompressed. Sizes and CRC are patched into the local header once an entry is complete, so
+ * no data descriptors are needed. No ZIP64: entries and archive must stay under 4 GB.
+ */
+public class ParallelDeflateZipWriter implements AutoCloseable {
+    static final int CHUNK_SIZE = 512 << 10;
+    private static final int DICTIONARY_SIZE = 32 << 10;
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    // Compressed chunks waiting to be written, per entry; bounds memory and keeps cores busy
+    private static final int MAX_PENDING_CHUNKS = 2 * PARALLELISM;
+    private static final long MAX_32BIT = 0xFFFFFFFFL;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+    // Own pool: compression tasks never block, and callers may already run on the shared pools
+    private static final ExecutorService deflaters = Executors.newFixedThreadPool(PARALLELISM, r -> {
+        Thread thread = new Thread(r);
+        thread.setName("ZipDeflater-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record CentralEntry(byte[] name, int method, long crc, long compressedSize, long size, long offset) { }
+
+    private final FileChannel channel;
+    private final int level;
+    private final int dosTime;
+    private final int dosDate;
+    private final List<CentralEntry> entries = new ArrayList<>();
+    private EntryStream openEntry;
+
+    /**
+     * @param level 0 (store) to 9
+     */
+    public ParallelDeflateZipWriter(File file, int level) throws IOException {
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9");
+        }
+        this.level = level;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        LocalDateTime now = LocalDateTime.now();
+        this.dosTime = (now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() >> 1);
+        this.dosDate = ((Math.max(1980, now.getYear()) - 1980) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth();
+    }
+
+    /**
+     * Starts a new entry; closing the returned stream completes it.
+     */
+    public OutputStream putEntry(String name) throws IOException {
+        checkNoOpenEntry();
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = channel.position();
+        // crc, compressed and uncompressed size: patched when the entry closes
+        writeLocalHeader(nameBytes, method(), 0, 0, 0);
+        openEntry = new EntryStream(nameBytes, offset);
+        return openEntry;
+    }
+
+    /**
+     * Adds an entry compressed elsewhere, copying it from {@code data} without loading it.
+     *
+     * @param data     file holding raw deflate data (no zlib header), or the content itself when not deflated
+     * @param deflated whether {@code data} is deflated, whatever this writer's level
+     * @param crc      CRC-32 of the uncompressed content
+     * @param size     length of the uncompressed content
+     */
+    public void putCompressedEntry(String name, File data, boolean deflated, long crc, long size)
+            throws IOException {
+        try (FileChannel source = FileChannel.open(data.toPath(), StandardOpenOption.READ)) {
+            putCompressedEntry(name, source, 0, source.size(), deflated, crc, size);
+        }
+    }
+
+    /**
+     * Copies an entry of another archive as it is, e.g. one listed by {@link ZipDirectory}.
+     */
+    public void putCompressedEntry(String name, FileChannel source, ZipDirectory.Entry entry) throws IOException {
+        putCompressedEntry(name, source, entry.dataOffset(), entry.compressedSize(), entry.deflated(), entry.crc(),
+                entry.size());
+    }
+
+    private void putCompressedEntry(String name, FileChannel source, long position, long compressedSize,
+                                    boolean deflated, long crc, long size) throws IOException {
+        checkNoOpenEntry();
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = channel.position();
+        if (size > MAX_32BIT || compressedSize > MAX_32BIT || offset > MAX_32BIT) {
+            throw new IOException("Entry too large without ZIP64: " + name);
+        }
+        int entryMethod = deflated ? 8 : 0;
+        writeLocalHeader(nameBytes, entryMethod, crc, compressedSize, size);
+        long copied = 0;
+        while (copied < compressedSize) {
+            long transferred = source.transferTo(position + copied, compressedSize - copied, channel);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of compressed data for " + name);
+            }
+            copied += transferred;
+        }
+        entries.add(new CentralEntry(nameBytes, entryMethod, crc, compressedSize, size, offset));
+    }
+
+    private void checkNoOpenEntry() {
+        if (openEntry != null) {
+            throw new IllegalStateException("Entry not closed: " + new String(openEntry.name, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void writeLocalHeader(byte[] nameBytes, int entryMethod, long crc, long compressedSize, long size)
+            throws IOException {
+        ByteBuffer header = littleEndian(30 + nameBytes.length);
+        header.putInt(0x04034b50)
+                .putShort((short) 20)
+                .putShort((short) 0x0800) // UTF-8 names
+                .putShort((short) entryMethod)
+                .putShort((short) dosTime)
+                .putShort((short) dosDate)
+                .putInt((int) crc)
+                .putInt((int) compressedSize)
+                .putInt((int) size)
+                .putShort((short) nameBytes.length)
+                .putShort((short) 0)
+                .put(nameBytes);
+        writeFully(header.flip());
+    }
+
+    public void putEntry(String name, byte[] content) throws IOException {
+        try (OutputStream out = putEntry(name)) {
+            out.write(content);
+        }
+    }
+
+    private int method() {
+        return level == 0 ? 0 : 8;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            if (openEntry != null) {
+                openEntry.close();
+            }
+            long directoryOffset = channel.position();
+            for (CentralEntry entry : entries) {
+                ByteBuffer record = littleEndian(46 + entry.name().length);
+                record.putInt(0x02014b50)
+                        .putShort((short) 20)
+                        .putShort((short) 20)
+                        .putShort((short) 0x0800)
+                        .putShort((short) entry.method())
+                        .putShort((short) dosTime)
+                        .putShort((short) dosDate)
+                        .putInt((int) entry.crc())
+                        .putInt((int) entry.compressedSize())
+                        .putInt((int) entry.size())
+                        .putShort((short) entry.name().length)
+                        .putShort((short) 0) // extra
+                        .putShort((short) 0) // comment
+                        .putShort((short) 0) // disk
+                        .putShort((short) 0) // internal attributes
+                        .putInt(0) // external attributes
+                        .putInt((int) entry.offset())
+                        .put(entry.name());
+                writeFully(record.flip());
+            }
+            long directorySize = channel.position() - directoryOffset;
+            if (entries.size() > 0xFFFF || channel.position() > MAX_32BIT) {
+                throw new IOException("Archive too large without ZIP64");
+            }
+            ByteBuffer end = littleEndian(22);
+            end.putInt(0x06054b50)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) entries.size())
+                    .putShort((short) entries.size())
+                    .putInt((int) directorySize)
+                    .putInt((int) directoryOffset)
+                    .putShort((short) 0);
+            writeFully(end.flip());
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer littleEndian(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private final class EntryStream extends OutputStream {
+        private final byte[] name;
+        private final long offset;
+        private final CRC32 crc = new CRC32();
+        private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        private byte[] chunk = new byte[CHUNK_SIZE];
+        private int chunkLength;
+        private byte[] previousChunk;
+        private long size;
+        private long compressedSize;
+        private boolean closed;
+
+        EntryStream(byte[] name, long offset) {
+            this.name = name;
+            this.offset = offset;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (chunkLength == chunk.length) {
+                flushChunk(false);
+            }
+            chunk[chunkLength++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (chunkLength == chunk.length) {
+                    flushChunk(false);
+                }
+                int count = Math.min(len, chunk.length - chunkLength);
+                System.arraycopy(b, off, chunk, chunkLength, count);
+                chunkLength += count;
+                off += count;
+                len -= count;
+            }
+        }
+
+        private void flushChunk(boolean last) throws IOException {
+            crc.update(chunk, 0, chunkLength);
+            size += chunkLength;
+            if (level == 0) {
+                writeData(ByteBuffer.wrap(chunk, 0, chunkLength));
+                chunkLength = 0;
+                return;
+            }
+
+            byte[] input = chunk;
+            int length = chunkLength;
+            byte[] dictionary = previousChunk;
+            if (last && pending.isEmpty()) {
+                // Small entry or the tail of one already drained: not worth a hand-off
+                writeData(ByteBuffer.wrap(deflate(input, length, dictionary, true)));
+            } else {
+                pending.add(deflaters.submit(() -> deflate(input, length, dictionary, last)));
+                while (pending.size() > MAX_PENDING_CHUNKS || (last && !pending.isEmpty())) {
+                    writeData(ByteBuffer.wrap(await(pending.poll())));
+                }
+            }
+            previousChunk = input;
+            chunk = new byte[CHUNK_SIZE];
+            chunkLength = 0;
+        }
+
+        private byte[] deflate(byte[] input, int length, byte[] dictionary, boolean last) {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                if (dictionary != null) {
+                    deflater.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+                }
+                deflater.setInput(input, 0, length);
+                ByteArrayOutputStream output = new ByteArrayOutputStream(length / 4 + 64);
+                byte[] buffer = new byte[64 << 10];
+                if (last) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        output.write(buffer, 0, deflater.deflate(buffer));
+                    }
+                } else {
+                    // Byte-aligned end without the final-block bit, so the next chunk can follow
+                    int count;
+                    do {
+                        count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                        output.write(buffer, 0, count);
+                    } while (count == buffer.length || !deflater.needsInput());
+                }
+                return output.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private byte[] await(Future<byte[]> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                pending.forEach(other -> other.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while compressing " + new String(name, StandardCharsets.UTF_8));
+            } catch (ExecutionException e) {
+                pending.forEach(other -> other.cancel(true));
+                throw new IOException("Error compressing " + new String(name, StandardCharsets.UTF_8), e.getCause());
+            }
+        }
+
+        private void writeData(ByteBuffer data) throws IOException {
+            compressedSize += data.remaining();
+            writeFully(data);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushChunk(true);
+            if (size > MAX_32BIT || compressedSize > MAX_32BIT || offset > MAX_32BIT) {
+                throw new IOException("Entry too large without ZIP64: " + new String(name, StandardCharsets.UTF_8));
+            }
+            ByteBuffer sizes = littleEndian(12);
+            sizes.putInt((int) crc.getValue()).putInt((int) compressedSize).putInt((int) size).flip();
+            long position = offset + 14;
+            while (sizes.hasRemaining()) {
+                position += channel.write(sizes, position);
+            }
+            entries.add(new CentralEntry(name, method(), crc.getValue(), compressedSize, size, offset));
+            openEntry = null;
+        }
+    }
+}
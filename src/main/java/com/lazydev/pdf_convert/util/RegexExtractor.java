@@ -28,9 +28,14 @@ public class RegexExtractor {
     }
 
     public static String extractSpecificData(String text) {
+        PDFData data = extractData(text);
+        return data != null ? data.toString() : "";
+    }
+
+    public static PDFData extractData(String text) {
+        // Per-document outcomes are recorded by the caller in the event journal
         if (text == null || text.trim().isEmpty()) {
-            logger.warn("Input text is null or empty");
-            return "";
+            return null;
         }
 
         PDFData data = new PDFData();
@@ -38,12 +43,10 @@ public class RegexExtractor {
             extractBusinessData(text, data);
             extractDeviceData(text, data);
             extractIdentificationData(text, data);
-
-            logger.debug("Successfully extracted data for business: {}", data.getBusinessName());
-            return data.toString();
+            return data;
         } catch (Exception e) {
             logger.error("Error extracting data from text", e);
-            return "";
+            return null;
         }
     }
 
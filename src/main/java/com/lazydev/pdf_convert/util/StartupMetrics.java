@@ -0,0 +1,60 @@
+package com.lazydev.pdf_convert.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-to-window and time-to-first-converted-file, measured from process start and logged once.
+ */
+public final class StartupMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(StartupMetrics.class);
+
+    private static final long NOT_SET = -1;
+    private static final long PROCESS_START_MILLIS = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElse(System.currentTimeMillis());
+
+    private static final AtomicLong windowShownMillis = new AtomicLong(NOT_SET);
+    private static final AtomicLong firstFileConvertedMillis = new AtomicLong(NOT_SET);
+
+    private StartupMetrics() {
+    }
+
+    public static void markWindowShown() {
+        long elapsed = System.currentTimeMillis() - PROCESS_START_MILLIS;
+        if (windowShownMillis.compareAndSet(NOT_SET, elapsed)) {
+            logger.info("Startup: window shown {} ms after process start", elapsed);
+        }
+    }
+
+    public static void markFirstFileConverted() {
+        if (firstFileConvertedMillis.get() != NOT_SET) {
+            return;
+        }
+        long elapsed = System.currentTimeMillis() - PROCESS_START_MILLIS;
+        if (firstFileConvertedMillis.compareAndSet(NOT_SET, elapsed)) {
+            logger.info("Startup: first file converted {} ms after process start", elapsed);
+        }
+    }
+
+    /**
+     * @return milliseconds from process start, or -1 if the window was not shown
+     */
+    public static long windowShownMillis() {
+        return windowShownMillis.get();
+    }
+
+    /**
+     * @return milliseconds from process start, or -1 if no file was converted
+     */
+    public static long firstFileConvertedMillis() {
+        return firstFileConvertedMillis.get();
+    }
+
+    public static String summary() {
+        return "timeToWindowMs=" + windowShownMillis() + " timeToFirstFileMs=" + firstFileConvertedMillis();
+    }
+}
@@ -3,9 +3,19 @@ package com.lazydev.pdf_convert.util;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ThreadPoolUtil {
-    private static final ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+    // Daemon threads so background Excel/PDF work never keeps the JVM alive after the window closes
+    // Sized for the concurrency governor's upper bound; CPU-bound helpers cap their own task count
+    private static final ExecutorService executorService = Executors.newFixedThreadPool(
+            ConcurrencyGovernor.maxWorkers(), r -> {
+                Thread thread = new Thread(r);
+                thread.setName("PDFWorker-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
 
     public static ExecutorService getExecutorService() {
         return executorService;
@@ -19,4 +29,4 @@ public class ThreadPoolUtil {
             Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+}
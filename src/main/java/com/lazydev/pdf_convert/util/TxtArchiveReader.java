@@ -0,0 +1,293 @@
+package com.lazydev.pdf_convert.util;
+
+import com.lazydev.pdf_convert.model.DataEntry;
+import com.lazydev.pdf_convert.model.PDFData;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads the TXT output written by {@code PDFService} back into records.
+ * <p>
+ * The file is memory-mapped and scanned as UTF-8 bytes: records start at a {@code File: } line,
+ * and every other line is matched against a prefix table indexed by its first byte, so each line
+ * is compared with at most a few labels and only field values are decoded to strings.
+ * Files above {@link #PARALLEL_THRESHOLD_BYTES} are cut into chunks that each start on a
+ * {@code File: } line and are parsed concurrently, then joined in file order.
+ */
+public final class TxtArchiveReader {
+    private static final byte[] FILE_MARKER = bytes("File: ");
+    private static final long PARALLEL_THRESHOLD_BYTES = 8L << 20;
+    private static final long MIN_CHUNK_BYTES = 4L << 20;
+    // A single mapping must stay below 2 GB
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+    private static final int BOUNDARY_SCAN_BYTES = 64 << 10;
+
+    private record Field(byte[] prefix, BiConsumer<PDFData, String> setter) { }
+
+    private static final Field[][] FIELDS_BY_FIRST_BYTE = buildFieldTable(
+            new Field(bytes("Tên kinh doanh: "), PDFData::setBusinessName),
+            new Field(bytes("Địa chỉ: "), PDFData::setAddress),
+            new Field(bytes("Số serial: "), PDFData::setSerialNumber),
+            new Field(bytes("Loại máy: "), PDFData::setPosDevice),
+            new Field(bytes("Mã máy: "), PDFData::setGroupName),
+            new Field(bytes("Ghi chú: "), PDFData::setNotes),
+            new Field(bytes("MID: "), PDFData::setMerchantId),
+            new Field(bytes("TID: "), PDFData::setTerminalId),
+            new Field(bytes("TID 00: "), PDFData::setTerminalId00),
+            new Field(bytes("TID V-TOP: "), PDFData::setTerminalVtopId),
+            new Field(bytes("POS_V-TOP: "), PDFData::setPosVtop));
+
+    private TxtArchiveReader() {
+    }
+
+    public static List<DataEntry> read(File txtFile) throws IOException {
+        return read(txtFile, 0, txtFile.length());
+    }
+
+    /**
+     * Reads only the records in {@code [from, to)}, e.g. those appended since an earlier read
+     * that ended at {@code from}. {@code from} must be 0 or the start of a {@code File: } line.
+     */
+    public static List<DataEntry> read(File txtFile, long from, long to) throws IOException {
+        try (FileChannel channel = FileChannel.open(txtFile.toPath(), StandardOpenOption.READ)) {
+            long end = Math.min(to, channel.size());
+            if (end <= from) {
+                return new ArrayList<>();
+            }
+            long[] bounds = chunkBounds(channel, from, end);
+            if (bounds.length == 2) {
+                return parseChunk(channel, bounds[0], bounds[1]);
+            }
+            return parseChunksInParallel(channel, bounds);
+        }
+    }
+
+    /**
+     * @return whether a record starts at {@code offset}, or {@code offset} is the end of the file
+     */
+    public static boolean isRecordStart(File txtFile, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(txtFile.toPath(), StandardOpenOption.READ)) {
+            if (offset == channel.size()) {
+                return true;
+            }
+            ByteBuffer head = ByteBuffer.allocate(FILE_MARKER.length);
+            while (head.hasRemaining()) {
+                if (channel.read(head, offset + head.position()) < 0) {
+                    return false;
+                }
+            }
+            return startsWith(head, 0, head.limit(), FILE_MARKER);
+        }
+    }
+
+    /**
+     * Splits {@code [from, size)} into chunks starting at {@code File: } lines. Returns the offsets
+     * {@code [from, b1, ..., size]}; the first chunk also holds anything before the first record.
+     */
+    private static long[] chunkBounds(FileChannel channel, long from, long size) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long length = size - from;
+        long target = length <= PARALLEL_THRESHOLD_BYTES || threads == 1
+                ? length
+                : Math.max(MIN_CHUNK_BYTES, length / (threads * 4L));
+        target = Math.min(target, MAX_CHUNK_BYTES);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(from);
+        long start = from;
+        while (size - start > target) {
+            long boundary = nextRecordStart(channel, start + target, size);
+            if (boundary - start > MAX_CHUNK_BYTES) {
+                throw new IOException("Record too large to map at offset " + start);
+            }
+            if (boundary == size) {
+                break;
+            }
+            bounds.add(boundary);
+            start = boundary;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * @return offset of the first {@code File: } line starting at or after {@code from}, or {@code size}
+     */
+    private static long nextRecordStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(BOUNDARY_SCAN_BYTES + FILE_MARKER.length);
+        // Start one byte early so a line beginning exactly at 'from' is seen after its newline
+        long position = from - 1;
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) {
+                break;
+            }
+            // Only look inside the range being read, the file may already be longer
+            read = (int) Math.min(read, size - position);
+            for (int i = 0; i < read && i < BOUNDARY_SCAN_BYTES; i++) {
+                if (window.get(i) == '\n' && startsWith(window, i + 1, read, FILE_MARKER)) {
+                    return position + i + 1;
+                }
+            }
+            position += BOUNDARY_SCAN_BYTES;
+        }
+        return size;
+    }
+
+    private static List<DataEntry> parseChunksInParallel(FileChannel channel, long[] bounds) throws IOException {
+        int chunkCount = bounds.length - 1;
+        AtomicReferenceArray<List<DataEntry>> results = new AtomicReferenceArray<>(chunkCount);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        AtomicInteger nextChunk = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(chunkCount);
+
+        // The caller and the helpers pull chunks from the same counter, so the read finishes even
+        // if the shared pool is busy with the folder tasks that called us
+        Runnable worker = () -> {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                try {
+                    if (failure.get() == null) {
+                        results.set(chunk, parseChunk(channel, bounds[chunk], bounds[chunk + 1]));
+                    }
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        int helpers = Math.min(chunkCount, Runtime.getRuntime().availableProcessors()) - 1;
+        for (int i = 0; i < helpers; i++) {
+            ThreadPoolUtil.getExecutorService().execute(worker);
+        }
+        worker.run();
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("TXT import interrupted");
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        int total = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            total += results.get(i).size();
+        }
+        List<DataEntry> dataList = new ArrayList<>(total);
+        for (int i = 0; i < chunkCount; i++) {
+            dataList.addAll(results.get(i));
+        }
+        return dataList;
+    }
+
+    private static List<DataEntry> parseChunk(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        try {
+            return parseChunk(buffer);
+        } finally {
+            // Values are already decoded to strings; an open mapping would block rewriting the TXT on Windows
+            BufferUnmapper.unmap(buffer);
+        }
+    }
+
+    private static List<DataEntry> parseChunk(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        byte[] scratch = new byte[256];
+        List<DataEntry> dataList = new ArrayList<>();
+        PDFData currentData = null;
+        String currentFileName = null;
+
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+
+            if (startsWith(buffer, lineStart, contentEnd, FILE_MARKER)) {
+                if (currentData != null) {
+                    dataList.add(new DataEntry(currentData, currentFileName));
+                }
+                currentData = new PDFData();
+                scratch = ensureCapacity(scratch, contentEnd - lineStart);
+                currentFileName = decode(buffer, lineStart + FILE_MARKER.length, contentEnd, scratch).trim();
+            } else if (currentData != null && lineStart < contentEnd) {
+                Field[] candidates = FIELDS_BY_FIRST_BYTE[buffer.get(lineStart) & 0xFF];
+                if (candidates != null) {
+                    for (Field field : candidates) {
+                        if (startsWith(buffer, lineStart, contentEnd, field.prefix())) {
+                            scratch = ensureCapacity(scratch, contentEnd - lineStart);
+                            field.setter().accept(currentData,
+                                    decode(buffer, lineStart + field.prefix().length, contentEnd, scratch));
+                            break;
+                        }
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (currentData != null) {
+            dataList.add(new DataEntry(currentData, currentFileName));
+        }
+        return dataList;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int offset, int limit, byte[] prefix) {
+        if (limit - offset < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(offset + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to, byte[] scratch) {
+        int length = to - from;
+        buffer.get(from, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] ensureCapacity(byte[] scratch, int length) {
+        return scratch.length >= length ? scratch : new byte[Math.max(length, scratch.length * 2)];
+    }
+
+    private static Field[][] buildFieldTable(Field... fields) {
+        Field[][] table = new Field[256][];
+        for (Field field : fields) {
+            int first = field.prefix()[0] & 0xFF;
+            Field[] existing = table[first];
+            Field[] extended = existing == null ? new Field[1] : Arrays.copyOf(existing, existing.length + 1);
+            extended[extended.length - 1] = field;
+            table[first] = extended;
+        }
+        return table;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,103 @@
+package com.lazydev.pdf_convert.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the central directory of a ZIP archive, so entries can be copied into another archive
+ * still compressed ({@link ParallelDeflateZipWriter#putCompressedEntry}). Like the writer it
+ * only handles archives without ZIP64.
+ */
+public final class ZipDirectory {
+    private static final int END_OF_DIRECTORY = 0x06054b50;
+    private static final int DIRECTORY_HEADER = 0x02014b50;
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int END_OF_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final long MAX_32BIT = 0xFFFFFFFFL;
+
+    /**
+     * @param dataOffset position of the entry's (compressed) data in the archive
+     */
+    public record Entry(String name, boolean deflated, long crc, long compressedSize, long size, long dataOffset) { }
+
+    private ZipDirectory() {
+    }
+
+    /**
+     * @return the entries in the order of the central directory
+     */
+    public static List<Entry> read(FileChannel channel) throws IOException {
+        long archiveSize = channel.size();
+        int tailSize = (int) Math.min(archiveSize, END_OF_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        ByteBuffer tail = read(channel, archiveSize - tailSize, tailSize);
+        int end = -1;
+        for (int i = tailSize - END_OF_DIRECTORY_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_OF_DIRECTORY) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            throw new IOException("Not a ZIP archive");
+        }
+        int count = Short.toUnsignedInt(tail.getShort(end + 10));
+        long directorySize = Integer.toUnsignedLong(tail.getInt(end + 12));
+        long directoryOffset = Integer.toUnsignedLong(tail.getInt(end + 16));
+        if (count == 0xFFFF || directoryOffset == MAX_32BIT || directoryOffset + directorySize > archiveSize) {
+            throw new IOException("Unsupported ZIP archive (ZIP64 or damaged directory)");
+        }
+
+        ByteBuffer directory = read(channel, directoryOffset, (int) directorySize);
+        List<Entry> entries = new ArrayList<>(count);
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            if (directory.getInt(position) != DIRECTORY_HEADER) {
+                throw new IOException("Damaged ZIP directory at entry " + i);
+            }
+            int method = Short.toUnsignedInt(directory.getShort(position + 10));
+            long crc = Integer.toUnsignedLong(directory.getInt(position + 16));
+            long compressedSize = Integer.toUnsignedLong(directory.getInt(position + 20));
+            long size = Integer.toUnsignedLong(directory.getInt(position + 24));
+            int nameLength = Short.toUnsignedInt(directory.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(directory.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(directory.getShort(position + 32));
+            long localOffset = Integer.toUnsignedLong(directory.getInt(position + 42));
+            byte[] name = new byte[nameLength];
+            directory.get(position + 46, name);
+            if (method != 0 && method != 8) {
+                throw new IOException("Unsupported ZIP compression method " + method);
+            }
+            if (compressedSize == MAX_32BIT || size == MAX_32BIT || localOffset == MAX_32BIT) {
+                throw new IOException("Unsupported ZIP archive (ZIP64 entry)");
+            }
+            entries.add(new Entry(new String(name, StandardCharsets.UTF_8), method == 8, crc, compressedSize, size,
+                    dataOffset(channel, localOffset)));
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    private static long dataOffset(FileChannel channel, long localOffset) throws IOException {
+        ByteBuffer header = read(channel, localOffset, 30);
+        if (header.getInt(0) != LOCAL_HEADER) {
+            throw new IOException("Damaged ZIP entry at offset " + localOffset);
+        }
+        return localOffset + 30 + Short.toUnsignedInt(header.getShort(26)) + Short.toUnsignedInt(header.getShort(28));
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of ZIP archive");
+            }
+        }
+        return buffer.flip();
+    }
+}